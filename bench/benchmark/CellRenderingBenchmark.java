@@ -0,0 +1,163 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Cost of one table cell update for the seller columns formatted by
+ * {@link Utils}: the cell factories are installed the same way
+ * SellerListController does, then a viewport of cells is scrolled over a
+ * generated list of sellers, as the VirtualFlow does when the user scrolls.
+ * Reports ns/op and bytes allocated per cell update.
+ *
+ * Cell values come from lambdas instead of PropertyValueFactory, so the
+ * numbers are the formatting cost and not the reflective property lookup.
+ * The "toString" column uses the default cell factory and is the baseline.
+ *
+ * Needs the JavaFX toolkit; on a machine without a display run it with
+ * Monocle on the classpath and -Dglass.platform=Monocle -Dmonocle.platform=Headless.
+ * Settings (system properties): bench.rows (default 100000), bench.viewport (40),
+ * bench.warmup (3 passes), bench.passes (10), bench.seed (42).
+ *
+ * Example: java -cp bin:javafx.jars benchmark.CellRenderingBenchmark
+ */
+public class CellRenderingBenchmark {
+
+	private final TableView<Seller> table;
+	private final int viewport;
+
+	private CellRenderingBenchmark(List<Seller> sellers, int viewport) {
+		this.table = new TableView<>(FXCollections.observableArrayList(sellers));
+		this.viewport = viewport;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long seed = Long.getLong("bench.seed", 42);
+		int rows = Integer.getInteger("bench.rows", 100_000);
+		int viewport = Integer.getInteger("bench.viewport", 40);
+		int warmup = Integer.getInteger("bench.warmup", 3);
+		int passes = Integer.getInteger("bench.passes", 10);
+
+		List<Seller> sellers = generate(seed, rows);
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		// Cells are scene graph nodes and may only be touched on the FX thread
+		Platform.startup(() -> {
+			try {
+				new CellRenderingBenchmark(sellers, viewport).runAll(warmup, passes);
+			} catch (Throwable e) {
+				failure.set(e);
+			} finally {
+				done.countDown();
+			}
+		});
+		done.await();
+		Platform.exit();
+		if (failure.get() != null) {
+			failure.get().printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private void runAll(int warmup, int passes) {
+		TableColumn<Seller, Double> baseline = new TableColumn<>("Base Salary");
+		baseline.setCellValueFactory(cd -> new SimpleObjectProperty<>(cd.getValue().getBaseSalary()));
+		run("toString", baseline, warmup, passes);
+
+		TableColumn<Seller, Double> salary = new TableColumn<>("Base Salary");
+		salary.setCellValueFactory(cd -> new SimpleObjectProperty<>(cd.getValue().getBaseSalary()));
+		Utils.formatTableColumnDouble(salary, 2);
+		run("formatDouble", salary, warmup, passes);
+
+		TableColumn<Seller, Date> birthDate = new TableColumn<>("Birth Date");
+		birthDate.setCellValueFactory(cd -> new SimpleObjectProperty<>(cd.getValue().getBirthDate()));
+		Utils.formatTableColumnDate(birthDate, "dd/MM/yyyy");
+		run("formatDate", birthDate, warmup, passes);
+	}
+
+	private <V> void run(String name, TableColumn<Seller, V> column, int warmup, int passes) {
+		table.getColumns().setAll(Collections.singletonList(column));
+		List<TableCell<Seller, V>> cells = new ArrayList<>();
+		for (int i = 0; i < viewport; i++) {
+			TableRow<Seller> row = new TableRow<>();
+			row.updateTableView(table);
+			TableCell<Seller, V> cell = column.getCellFactory().call(column);
+			cell.updateTableView(table);
+			cell.updateTableColumn(column);
+			cell.updateTableRow(row);
+			cells.add(cell);
+		}
+
+		for (int i = 0; i < warmup; i++) {
+			scroll(cells);
+		}
+		long bytesBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < passes; i++) {
+			scroll(cells);
+		}
+		long elapsed = System.nanoTime() - start;
+		long bytes = allocatedBytes() - bytesBefore;
+
+		long updates = (long) passes * table.getItems().size();
+		System.out.println(String.format("%-14s updates=%10d  %8.1f ns/op  %8s B/op", name, updates,
+				(double) elapsed / updates, bytesBefore < 0 ? "n/a" : String.format("%.1f", (double) bytes / updates)));
+	}
+
+	// One pass over every row: each cell is reused for the row scrolling into its slot
+	private void scroll(List<? extends TableCell<Seller, ?>> cells) {
+		int size = table.getItems().size();
+		for (int index = 0; index < size; index++) {
+			TableCell<Seller, ?> cell = cells.get(index % cells.size());
+			cell.getTableRow().updateIndex(index);
+			cell.updateIndex(index);
+		}
+	}
+
+	// Bytes allocated so far by this thread, or -1 when the JVM cannot tell
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported()) {
+				sunBean.setThreadAllocatedMemoryEnabled(true);
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private static List<Seller> generate(long seed, int rows) {
+		List<Department> departments = new ArrayList<>();
+		for (int i = 1; i <= 20; i++) {
+			departments.add(new Department(i, "Department " + i));
+		}
+		SyntheticData data = new SyntheticData(seed, departments.size(), rows);
+		Random random = new Random(seed);
+		List<Seller> sellers = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			Seller obj = data.newSeller(random, i, departments);
+			obj.setId(i + 1);
+			sellers.add(obj);
+		}
+		return sellers;
+	}
+}
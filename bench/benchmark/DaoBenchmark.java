@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import db.ConnectionPool;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.SellerDaoJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Throughput and latency of the JDBC DAOs against a generated data set.
+ *
+ * Runs against an embedded in-process database by default (H2 in SQL Server
+ * mode, its jar has to be on the classpath); pass -Dbench.url to point it at
+ * a real server. Other settings, all system properties:
+ *
+ * bench.sellers (default 100000), bench.departments (20), bench.seed (42),
+ * bench.warmup (2000 operations), bench.iterations (20000 operations),
+ * bench.findAllIterations (20), bench.user, bench.password.
+ *
+ * Example: java -cp bin:h2.jar -Dbench.sellers=1000000 benchmark.DaoBenchmark
+ */
+public class DaoBenchmark {
+
+	private final SellerDao sellerDao;
+	private final List<Department> departments;
+	private final SyntheticData data;
+	private final int sellerCount;
+	private final Random random;
+
+	private DaoBenchmark(SellerDao sellerDao, List<Department> departments, SyntheticData data, long seed) {
+		this.sellerDao = sellerDao;
+		this.departments = departments;
+		this.data = data;
+		this.sellerCount = data.getSellerCount();
+		this.random = new Random(seed);
+	}
+
+	public static void main(String[] args) {
+		long seed = Long.getLong("bench.seed", 42);
+		int sellers = Integer.getInteger("bench.sellers", 100_000);
+		int departmentCount = Integer.getInteger("bench.departments", 20);
+		int warmup = Integer.getInteger("bench.warmup", 2_000);
+		int iterations = Integer.getInteger("bench.iterations", 20_000);
+		int findAllIterations = Integer.getInteger("bench.findAllIterations", 20);
+
+		Properties props = new Properties();
+		props.setProperty("user", System.getProperty("bench.user", "sa"));
+		props.setProperty("password", System.getProperty("bench.password", ""));
+		String url = System.getProperty("bench.url", "jdbc:h2:mem:bench;MODE=MSSQLServer;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+		ConnectionPool pool = new ConnectionPool(url, props);
+
+		try {
+			SyntheticData data = new SyntheticData(seed, departmentCount, sellers);
+			SyntheticData.createSchema(pool);
+			DepartmentDao departmentDao = new DepartmentDaoJDBC(pool, 500);
+			SellerDao sellerDao = new SellerDaoJDBC(pool, 500);
+
+			long start = System.nanoTime();
+			List<Department> departments = data.loadDepartments(departmentDao);
+			data.loadSellers(sellerDao, departments);
+			System.out.printf("Loaded %d departments and %d sellers in %.1f s%n", departmentCount, sellers,
+					(System.nanoTime() - start) / 1e9);
+
+			DaoBenchmark bench = new DaoBenchmark(sellerDao, departments, data, seed);
+			bench.run("findByid", warmup, iterations, bench::findById);
+			bench.run("findByDepartment", warmup / 10, iterations / 10, bench::findByDepartment);
+			bench.run("findAll", 2, findAllIterations, bench::findAll);
+			bench.run("insert", warmup, iterations, bench::insert);
+			bench.run("update", warmup, iterations, bench::update);
+			System.out.println(pool);
+
+		} finally {
+			pool.close();
+		}
+	}
+
+	private void run(String name, int warmup, int iterations, Runnable operation) {
+		for (int i = 0; i < warmup; i++) {
+			operation.run();
+		}
+		LatencyRecorder recorder = new LatencyRecorder(name, iterations);
+		recorder.start();
+		for (int i = 0; i < iterations; i++) {
+			long t0 = System.nanoTime();
+			operation.run();
+			recorder.record(System.nanoTime() - t0);
+		}
+		recorder.stop();
+		System.out.println(recorder.report());
+	}
+
+	private int randomId() {
+		return 1 + random.nextInt(sellerCount);
+	}
+
+	private void findById() {
+		sellerDao.findByid(randomId());
+	}
+
+	private void findByDepartment() {
+		sellerDao.findByDepartment(departments.get(random.nextInt(departments.size())));
+	}
+
+	private void findAll() {
+		sellerDao.findAll();
+	}
+
+	private int inserted;
+
+	private void insert() {
+		Seller obj = data.newSeller(random, sellerCount + inserted++, departments);
+		sellerDao.insert(obj);
+	}
+
+	private void update() {
+		Seller obj = sellerDao.findByid(randomId());
+		if (obj != null) {
+			obj.setBaseSalary(obj.getBaseSalary() + 1);
+			sellerDao.update(obj);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Keeps every sample of one measurement run, so percentiles are exact.
+ */
+public class LatencyRecorder {
+
+	private final String name;
+	private final long[] samples;
+	private int count;
+	private long startNanos;
+	private long endNanos;
+
+	public LatencyRecorder(String name, int capacity) {
+		this.name = name;
+		this.samples = new long[capacity];
+	}
+
+	public void start() {
+		startNanos = System.nanoTime();
+	}
+
+	public void record(long nanos) {
+		samples[count++] = nanos;
+	}
+
+	public void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	public String report() {
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		double seconds = (endNanos - startNanos) / 1e9;
+		return String.format("%-18s ops=%8d  throughput=%10.1f ops/s  p50=%9.1f us  p95=%9.1f us  p99=%9.1f us  max=%9.1f us",
+				name, count, count / seconds, percentile(sorted, 0.50), percentile(sorted, 0.95),
+				percentile(sorted, 0.99), count == 0 ? 0.0 : sorted[count - 1] / 1000.0);
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1000.0;
+	}
+}
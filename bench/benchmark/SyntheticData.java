@@ -0,0 +1,108 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import db.ConnectionPool;
+import db.DB;
+import db.DbException;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Deterministic data set for the benchmarks: the same seed and counts always
+ * produce the same departments and sellers.
+ */
+public class SyntheticData {
+
+	private static final String[] FIRST_NAMES = { "Ana", "Bruno", "Carla", "Diego", "Elisa", "Fabio", "Gabriela",
+			"Hugo", "Isabel", "Joao", "Karen", "Lucas", "Marina", "Nelson", "Olivia", "Paulo", "Rafaela", "Sergio",
+			"Tania", "Vitor" };
+	private static final String[] LAST_NAMES = { "Silva", "Santos", "Oliveira", "Souza", "Lima", "Pereira",
+			"Ferreira", "Costa", "Rodrigues", "Almeida", "Nascimento", "Carvalho", "Gomes", "Martins", "Rocha" };
+
+	private final long seed;
+	private final int departmentCount;
+	private final int sellerCount;
+
+	public SyntheticData(long seed, int departmentCount, int sellerCount) {
+		this.seed = seed;
+		this.departmentCount = departmentCount;
+		this.sellerCount = sellerCount;
+	}
+
+	// Same DDL the application expects, written so it also runs on an embedded database
+	public static void createSchema(ConnectionPool pool) {
+		Connection con = null;
+		Statement st = null;
+		try {
+			con = pool.borrow();
+			st = con.createStatement();
+			st.execute("DROP TABLE IF EXISTS seller");
+			st.execute("DROP TABLE IF EXISTS department");
+			st.execute("CREATE TABLE department (Id INT IDENTITY PRIMARY KEY, Name VARCHAR(60) NOT NULL)");
+			st.execute("CREATE TABLE seller (Id INT IDENTITY PRIMARY KEY, Name VARCHAR(60) NOT NULL, "
+					+ "Email VARCHAR(100) NOT NULL, BirthDate DATETIME NOT NULL, BaseSalary FLOAT NOT NULL, "
+					+ "DepartmentId INT NOT NULL REFERENCES department (Id))");
+			st.execute("CREATE INDEX IX_seller_DepartmentId ON seller (DepartmentId)");
+			st.execute("CREATE INDEX IX_seller_Name ON seller (Name)");
+			st.execute("CREATE INDEX IX_seller_Email ON seller (Email)");
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+
+		} finally {
+			DB.closeStatement(st);
+			DB.closeConnection(con);
+		}
+	}
+
+	public List<Department> loadDepartments(DepartmentDao dao) {
+		List<Department> list = new ArrayList<>(departmentCount);
+		for (int i = 1; i <= departmentCount; i++) {
+			list.add(new Department(null, "Department " + i));
+		}
+		dao.insertAll(list);
+		return list;
+	}
+
+	// Inserts the sellers in chunks so millions of rows never sit in memory at once
+	public void loadSellers(SellerDao dao, List<Department> departments) {
+		Random random = new Random(seed);
+		int chunk = 10_000;
+		for (int start = 0; start < sellerCount; start += chunk) {
+			int end = Math.min(sellerCount, start + chunk);
+			List<Seller> list = new ArrayList<>(end - start);
+			for (int i = start; i < end; i++) {
+				list.add(newSeller(random, i, departments));
+			}
+			dao.insertAll(list);
+		}
+	}
+
+	public Seller newSeller(Random random, int index, List<Department> departments) {
+		String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+				+ LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+		String email = name.toLowerCase().replace(' ', '.') + index + "@example.com";
+		// born between 1960 and 2000
+		long birth = -315619200000L + (long) (random.nextDouble() * 1262304000000L);
+		double salary = 1000 + random.nextInt(900_000) / 100.0;
+		Department dep = departments.get(random.nextInt(departments.size()));
+		return new Seller(null, name, email, new Date(birth), salary, dep);
+	}
+
+	public int getDepartmentCount() {
+		return departmentCount;
+	}
+
+	public int getSellerCount() {
+		return sellerCount;
+	}
+}
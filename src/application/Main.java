@@ -1,20 +1,52 @@
 package application;
 
 import java.io.IOException;
+import java.util.logging.Logger;
 
+import db.DB;
+import db.DbException;
+import gui.util.Alerts;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ScrollPane;
 import javafx.stage.Stage;
+import model.dao.DaoFactory;
+import model.dao.metrics.DaoMetrics;
+import model.services.DepartmentService;
+import model.services.ServiceExecutor;
 
 public class Main extends Application {
 	
 	private static Scene mainScene;
+	private static final StartupTimer startup = new StartupTimer();
+	private static final Logger LOGGER = Logger.getLogger("startup");
+	// false once the pool could not be opened, the first query is then not attempted
+	private static volatile boolean connected = true;
 	
+	@Override
+	public void init() {
+		// cached sellers are shown in the tables, so they are only changed on the FX thread
+		DaoFactory.setSellerRefreshExecutor(task -> {
+			if (Platform.isFxApplicationThread()) {
+				task.run();
+			} else {
+				Platform.runLater(task);
+			}
+		});
+		// startup.mode=eager opens the connections before the window is shown
+		if (isEagerStartup()) {
+			connect();
+		}
+	}
+
 	@Override
 	public void start(Stage primaryStage) {
+		startup.end("JavaFX init");
 		try {
+			startup.begin("FXML load");
 			FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/MainView.fxml"));
 			ScrollPane scrollPane = loader.load();
 			scrollPane.setFitToHeight(true);
@@ -22,11 +54,75 @@ public class Main extends Application {
 			mainScene = new Scene(scrollPane);
 			primaryStage.setScene(mainScene);
 			primaryStage.setTitle("Sample JavaFX application");
+			startup.end("FXML load");
 			primaryStage.show();
+			startup.mark("Window shown");
 		
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+
+		// The window is already up: the database is opened and queried in the background
+		ServiceExecutor.run(() -> {
+			if (!isEagerStartup()) {
+				connect();
+			}
+			if (!connected) {
+				return;
+			}
+			startup.begin("First query");
+			try {
+				new DepartmentService().findAll();
+			} catch (DbException e) {
+				showError("Error loading data", e);
+			}
+			startup.end("First query");
+		}).whenComplete((v, error) -> {
+			// startup.report=true logs how long each phase took
+			if (isStartupReport()) {
+				LOGGER.info(startup.report());
+			}
+		});
+	}
+
+	private static void connect() {
+		startup.begin("DB connect");
+		try {
+			DB.getPool().warmUp();
+		} catch (DbException e) {
+			connected = false;
+			showError("Could not connect to the database", e);
+		}
+		startup.end("DB connect");
+	}
+
+	// Called off the FX thread, before or after the window is shown
+	private static void showError(String title, DbException e) {
+		Platform.runLater(() -> Alerts.showAlert(title, null, e.getMessage(), AlertType.ERROR));
+	}
+
+	private static boolean isEagerStartup() {
+		try {
+			return "eager".equalsIgnoreCase(DB.getProperties().getProperty("startup.mode", "fast").trim());
+		} catch (DbException e) {
+			return false;
+		}
+	}
+
+	private static boolean isStartupReport() {
+		try {
+			return Boolean.parseBoolean(DB.getProperties().getProperty("startup.report", "false").trim());
+		} catch (DbException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void stop() {
+		ServiceExecutor.shutdown();
+		DaoMetrics.stopLogging();
+		DaoMetrics.logSummary();
+		DB.closePool();
 	}
 
 	public static Scene getMainScene() {
@@ -34,6 +130,7 @@ public class Main extends Application {
 		
 	}
 	public static void main(String[] args) {
+		startup.begin("JavaFX init");
 		launch(args);
 	}
 }
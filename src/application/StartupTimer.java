@@ -0,0 +1,55 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each startup phase took, counted from the call to main().
+ * Phases may overlap (the database is opened while the window is built), so
+ * each one is reported with its start offset and its duration.
+ */
+public class StartupTimer {
+
+	// time from the JVM start to main(), before the origin is taken since the MXBean is slow to load
+	private final long jvmStartupMillis = System.currentTimeMillis()
+			- ManagementFactory.getRuntimeMXBean().getStartTime();
+	private final long originNanos = System.nanoTime();
+	private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+	public synchronized void begin(String phase) {
+		phases.put(phase, new long[] { System.nanoTime(), -1 });
+	}
+
+	public synchronized void end(String phase) {
+		long[] times = phases.get(phase);
+		if (times != null && times[1] < 0) {
+			times[1] = System.nanoTime();
+		}
+	}
+
+	// A phase with no duration, like the moment the window appears
+	public synchronized void mark(String phase) {
+		long now = System.nanoTime();
+		phases.put(phase, new long[] { now, now });
+	}
+
+	public synchronized String report() {
+		StringBuilder sb = new StringBuilder("Startup timing (ms since main):");
+		sb.append(String.format("%n  %-14s %8s %8d", "JVM start", "", jvmStartupMillis));
+		long last = originNanos;
+		for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+			long[] times = phase.getValue();
+			long end = times[1] < 0 ? System.nanoTime() : times[1];
+			sb.append(String.format("%n  %-14s at %5d %8d%s", phase.getKey(), millis(times[0] - originNanos),
+					millis(end - times[0]), times[1] < 0 ? " (not finished)" : ""));
+			last = Math.max(last, end);
+		}
+		sb.append(String.format("%n  %-14s %8s %8d", "Total", "", millis(last - originNanos)));
+		return sb.toString();
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1_000_000;
+	}
+}
@@ -0,0 +1,135 @@
+package db;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends lines to a file from a background thread, so the caller never waits
+ * for the disk: append() only puts the line in a bounded queue, and drops it
+ * (counting the drop) when the queue is full.
+ *
+ * When the file grows past maxBytes it is renamed to file.1, the previous
+ * file.1 to file.2 and so on, keeping at most maxFiles old files.
+ */
+public class AsyncFileAppender {
+
+	private static final String STOP = new String("stop");
+
+	private final Path file;
+	private final long maxBytes;
+	private final int maxFiles;
+	private final BlockingQueue<String> queue;
+	private final Thread writerThread;
+	private final AtomicLong dropped = new AtomicLong();
+
+	private BufferedWriter writer;
+	private long size;
+
+	public AsyncFileAppender(Path file, long maxBytes, int maxFiles, int queueCapacity) {
+		this.file = file;
+		this.maxBytes = maxBytes;
+		this.maxFiles = Math.max(1, maxFiles);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.writerThread = new Thread(this::writeLoop, "log-writer-" + file.getFileName());
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public void append(String line) {
+		if (!queue.offer(line)) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	// Writes what is still queued, waiting at most a second
+	public void close() {
+		try {
+			queue.offer(STOP, 1, TimeUnit.SECONDS);
+			writerThread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeLoop() {
+		try {
+			while (true) {
+				String line = queue.take();
+				// writes everything queued meanwhile before flushing
+				while (line != null) {
+					if (line == STOP) {
+						closeWriter();
+						return;
+					}
+					write(line);
+					line = queue.poll();
+				}
+				long lost = dropped.getAndSet(0);
+				if (lost > 0) {
+					write(lost + " lines dropped, the log could not keep up");
+				}
+				if (writer != null) {
+					writer.flush();
+				}
+			}
+		} catch (InterruptedException e) {
+			closeWriter();
+		} catch (IOException e) {
+			System.err.println("Could not write to " + file + ": " + e.getMessage());
+			closeWriter();
+		}
+	}
+
+	private void write(String line) throws IOException {
+		if (writer == null || size >= maxBytes) {
+			rotate();
+		}
+		writer.write(line);
+		writer.newLine();
+		size += line.length() + 1;
+	}
+
+	private void rotate() throws IOException {
+		closeWriter();
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		if (Files.exists(file) && Files.size(file) >= maxBytes) {
+			for (int i = maxFiles - 1; i >= 1; i--) {
+				Path older = file.resolveSibling(file.getFileName() + "." + i);
+				if (Files.exists(older)) {
+					Files.move(older, file.resolveSibling(file.getFileName() + "." + (i + 1)),
+							StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+		}
+		writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+		size = Files.size(file);
+	}
+
+	private void closeWriter() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				// nothing more can be written anyway
+			}
+			writer = null;
+		}
+	}
+}
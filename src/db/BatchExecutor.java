@@ -0,0 +1,358 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs one INSERT/UPDATE for a collection of objects using JDBC batching,
+ * flushing every batchSize rows, and DELETEs by chunked id lists. The caller
+ * owns the connection and the transaction.
+ *
+ * On SQL Server, whose driver does not return generated keys for a batch,
+ * inserts are sent as multi-row statements instead (see insertRows).
+ */
+public class BatchExecutor {
+
+	@FunctionalInterface
+	public interface Binder<T> {
+		void bind(PreparedStatement st, T obj) throws SQLException;
+	}
+
+	// Binds the columns of one row starting at parameter offset + 1
+	@FunctionalInterface
+	public interface RowBinder<T> {
+		void bind(PreparedStatement st, int offset, T obj) throws SQLException;
+	}
+
+	// SQL Server accepts at most 2100 parameters per statement and 1000 rows per VALUES list
+	private static final int MAX_PARAMETERS = 2100;
+	private static final int MAX_VALUES_ROWS = 1000;
+
+	// Other drivers may not return generated keys for a batch either. The first
+	// batched insert finds out and later ones go straight to the right mode.
+	// Row by row is the last resort, used only when neither works.
+	private static volatile Boolean batchKeysSupported = null;
+
+	/**
+	 * Inserts every item into the given columns of table and returns the
+	 * generated ids in the same order as the input.
+	 */
+	public static <T> List<Integer> insert(Connection con, String table, String[] columns, Collection<T> items,
+			int batchSize, RowBinder<T> binder) throws SQLException {
+		if (isSqlServer(con)) {
+			return insertRows(con, table, columns, items, batchSize, binder);
+		}
+		List<Integer> ids = new ArrayList<>(items.size());
+		PreparedStatement st = null;
+		try {
+			st = con.prepareStatement(insertSql(table, columns), Statement.RETURN_GENERATED_KEYS);
+			List<T> chunk = new ArrayList<>(Math.min(batchSize, items.size()));
+			for (T item : items) {
+				chunk.add(item);
+				if (chunk.size() == batchSize) {
+					flushInsert(con, st, chunk, binder, ids);
+					chunk.clear();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				flushInsert(con, st, chunk, binder, ids);
+			}
+			return ids;
+
+		} finally {
+			DB.closeStatement(st);
+		}
+	}
+
+	/**
+	 * Runs the statement once per item and returns the total number of affected rows.
+	 */
+	public static <T> int update(Connection con, String sql, Collection<T> items, int batchSize, Binder<T> binder)
+			throws SQLException {
+		int rowsAffected = 0;
+		PreparedStatement st = null;
+		try {
+			st = con.prepareStatement(sql);
+			int pending = 0;
+			for (T item : items) {
+				binder.bind(st, item);
+				st.addBatch();
+				if (++pending == batchSize) {
+					rowsAffected += sum(st.executeBatch());
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				rowsAffected += sum(st.executeBatch());
+			}
+			return rowsAffected;
+
+		} finally {
+			DB.closeStatement(st);
+		}
+	}
+
+	/**
+	 * Deletes the rows with the given ids with "deleteSql IN (?, ?, ...)", at
+	 * most chunkSize ids per statement, in the caller's transaction.
+	 *
+	 * A chunk that fails on a constraint is undone (savepoint) and retried row
+	 * by row, so the rows still referenced elsewhere are reported in the result
+	 * and every other row is deleted. Any other error is thrown.
+	 */
+	public static DeleteResult deleteByIds(Connection con, String deleteSql, Collection<Integer> ids, int chunkSize)
+			throws SQLException {
+		// SQL Server accepts at most 2100 parameters per statement
+		int size = Math.max(1, Math.min(chunkSize, 1000));
+		List<Integer> deleted = new ArrayList<>(ids.size());
+		Map<Integer, DbIntegrityException> failures = new LinkedHashMap<>();
+		int rowsAffected = 0;
+
+		List<Integer> chunk = new ArrayList<>(Math.min(size, ids.size()));
+		for (Integer id : new LinkedHashSet<>(ids)) {
+			chunk.add(id);
+			if (chunk.size() == size) {
+				rowsAffected += deleteChunk(con, deleteSql, chunk, deleted, failures);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			rowsAffected += deleteChunk(con, deleteSql, chunk, deleted, failures);
+		}
+		return new DeleteResult(deleted, rowsAffected, failures);
+	}
+
+	private static int deleteChunk(Connection con, String deleteSql, List<Integer> chunk, List<Integer> deleted,
+			Map<Integer, DbIntegrityException> failures) throws SQLException {
+		StringBuilder sql = new StringBuilder(deleteSql).append(" IN (");
+		for (int i = 0; i < chunk.size(); i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(")");
+
+		Savepoint savepoint = con.setSavepoint();
+		PreparedStatement st = null;
+		try {
+			st = con.prepareStatement(sql.toString());
+			for (int i = 0; i < chunk.size(); i++) {
+				st.setInt(i + 1, chunk.get(i));
+			}
+			int rows = st.executeUpdate();
+			deleted.addAll(chunk);
+			return rows;
+
+		} catch (SQLException e) {
+			if (!isIntegrityViolation(e)) {
+				throw e;
+			}
+			con.rollback(savepoint);
+		} finally {
+			DB.closeStatement(st);
+		}
+
+		// Find the rows that cannot go, one statement each
+		int rows = 0;
+		for (Integer id : chunk) {
+			Savepoint rowSavepoint = con.setSavepoint();
+			PreparedStatement rowSt = null;
+			try {
+				rowSt = con.prepareStatement(deleteSql + " = ?");
+				rowSt.setInt(1, id);
+				rows += rowSt.executeUpdate();
+				deleted.add(id);
+
+			} catch (SQLException e) {
+				if (!isIntegrityViolation(e)) {
+					throw e;
+				}
+				con.rollback(rowSavepoint);
+				failures.put(id, new DbIntegrityException(e.getMessage()));
+			} finally {
+				DB.closeStatement(rowSt);
+			}
+		}
+		return rows;
+	}
+
+	// SQLState class 23 is "integrity constraint violation" in both the SQL standard and SQL Server
+	private static boolean isIntegrityViolation(SQLException e) {
+		return e instanceof SQLIntegrityConstraintViolationException
+				|| (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+	}
+
+	/*
+	 * SQL Server: one statement per chunk of rows,
+	 *
+	 *   MERGE INTO table USING (VALUES (?, ...), (?, ...)) AS src (Seq, columns...) ON 1 = 0
+	 *   WHEN NOT MATCHED THEN INSERT (columns...) VALUES (src.columns...)
+	 *   OUTPUT src.Seq, INSERTED.Id;
+	 *
+	 * INSERT ... OUTPUT does not guarantee its rows come back in VALUES order,
+	 * MERGE can output the source row number next to the new id, so each id is
+	 * matched to its row whatever the order.
+	 */
+	private static <T> List<Integer> insertRows(Connection con, String table, String[] columns, Collection<T> items,
+			int batchSize, RowBinder<T> binder) throws SQLException {
+		int rowsPerStatement = Math.max(1,
+				Math.min(Math.min(batchSize, MAX_VALUES_ROWS), (MAX_PARAMETERS - 1) / (columns.length + 1)));
+		Integer[] ids = new Integer[items.size()];
+		List<T> chunk = new ArrayList<>(Math.min(rowsPerStatement, items.size()));
+		int first = 0;
+		for (T item : items) {
+			chunk.add(item);
+			if (chunk.size() == rowsPerStatement) {
+				mergeChunk(con, table, columns, chunk, first, binder, ids);
+				first += chunk.size();
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			mergeChunk(con, table, columns, chunk, first, binder, ids);
+		}
+		return Arrays.asList(ids);
+	}
+
+	private static <T> void mergeChunk(Connection con, String table, String[] columns, List<T> chunk, int first,
+			RowBinder<T> binder, Integer[] ids) throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			// full chunks all share one SQL text, so the statement cache keeps a single entry for them
+			st = con.prepareStatement(mergeSql(table, columns, chunk.size()));
+			int offset = 0;
+			for (int i = 0; i < chunk.size(); i++) {
+				st.setInt(offset + 1, first + i);
+				binder.bind(st, offset + 1, chunk.get(i));
+				offset += columns.length + 1;
+			}
+			rs = st.executeQuery();
+			int count = 0;
+			while (rs.next()) {
+				ids[rs.getInt(1)] = rs.getInt(2);
+				count++;
+			}
+			if (count != chunk.size()) {
+				throw new SQLException("Inserted " + count + " rows for a chunk of " + chunk.size());
+			}
+
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+		}
+	}
+
+	private static String insertSql(String table, String[] columns) {
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+				.append(String.join(", ", columns)).append(") VALUES (");
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		return sql.append(")").toString();
+	}
+
+	private static String mergeSql(String table, String[] columns, int rows) {
+		StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" USING (VALUES ");
+		for (int row = 0; row < rows; row++) {
+			sql.append(row == 0 ? "(?" : ", (?");
+			for (int i = 0; i < columns.length; i++) {
+				sql.append(", ?");
+			}
+			sql.append(")");
+		}
+		sql.append(") AS src (Seq, ").append(String.join(", ", columns)).append(") ON 1 = 0 ")
+				.append("WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (");
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i == 0 ? "src." : ", src.").append(columns[i]);
+		}
+		return sql.append(") OUTPUT src.Seq, INSERTED.Id;").toString();
+	}
+
+	private static boolean isSqlServer(Connection con) throws SQLException {
+		String product = con.getMetaData().getDatabaseProductName();
+		return product != null && product.startsWith("Microsoft SQL Server");
+	}
+
+	private static <T> void flushInsert(Connection con, PreparedStatement st, List<T> chunk, RowBinder<T> binder,
+			List<Integer> ids) throws SQLException {
+		if (batchKeysSupported != Boolean.FALSE) {
+			Savepoint savepoint = batchKeysSupported == null ? con.setSavepoint() : null;
+			for (T item : chunk) {
+				binder.bind(st, 0, item);
+				st.addBatch();
+			}
+			st.executeBatch();
+
+			List<Integer> keys;
+			try {
+				keys = readKeys(st);
+			} catch (SQLException e) {
+				if (savepoint == null) {
+					throw e;
+				}
+				keys = null;
+			}
+			if (keys != null && keys.size() == chunk.size()) {
+				if (savepoint != null) {
+					batchKeysSupported = Boolean.TRUE;
+				}
+				ids.addAll(keys);
+				return;
+			}
+			if (savepoint == null) {
+				throw new SQLException("Driver returned " + (keys == null ? 0 : keys.size())
+						+ " generated keys for a batch of " + chunk.size() + " rows");
+			}
+			con.rollback(savepoint);
+			batchKeysSupported = Boolean.FALSE;
+		}
+
+		// Row by row on the same prepared statement and transaction
+		for (T item : chunk) {
+			binder.bind(st, 0, item);
+			if (st.executeUpdate() == 0) {
+				throw new SQLException("Erro inesperado, nenhuma linha foi afetada!");
+			}
+			List<Integer> keys = readKeys(st);
+			if (keys.size() != 1) {
+				throw new SQLException("Driver did not return the generated key");
+			}
+			ids.add(keys.get(0));
+		}
+	}
+
+	private static List<Integer> readKeys(PreparedStatement st) throws SQLException {
+		List<Integer> keys = new ArrayList<>();
+		ResultSet rs = null;
+		try {
+			rs = st.getGeneratedKeys();
+			while (rs.next()) {
+				keys.add(rs.getInt(1));
+			}
+			return keys;
+
+		} finally {
+			DB.closeResultSet(rs);
+		}
+	}
+
+	private static int sum(int[] counts) {
+		int total = 0;
+		for (int count : counts) {
+			// SUCCESS_NO_INFO (-2) means the driver did not report a count for that row
+			total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,36 @@
+package db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column label to ordinal lookup for one ResultSet, read once from its
+ * metadata. Labels are case insensitive and when a label repeats (as in
+ * "SELECT seller.*, department.*") the first column wins.
+ */
+public class ColumnIndex {
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+
+	private ColumnIndex(ResultSetMetaData metaData) throws SQLException {
+		for (int i = metaData.getColumnCount(); i >= 1; i--) {
+			ordinals.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+		}
+	}
+
+	public static ColumnIndex of(ResultSet rs) throws SQLException {
+		return new ColumnIndex(rs.getMetaData());
+	}
+
+	public int get(String label) throws SQLException {
+		Integer ordinal = ordinals.get(label.toLowerCase(Locale.ROOT));
+		if (ordinal == null) {
+			throw new SQLException("Column not found: " + label);
+		}
+		return ordinal;
+	}
+}
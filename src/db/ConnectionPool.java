@@ -0,0 +1,389 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Connections handed out by {@link #borrow()} are proxies: calling close() on
+ * them returns the physical connection to the pool instead of closing it.
+ * Each physical connection keeps a {@link StatementCache}, so repeated
+ * prepareStatement calls with the same SQL reuse the prepared handle, and
+ * statements are timed by a {@link SlowQueryLog} when one is configured.
+ * Configuration is read from the "pool.*" and "slowQuery.*" keys of db.properties.
+ *
+ * Only the keys without a dot (user, password, ...) and the "driver.*" keys,
+ * with the prefix removed, are passed to the JDBC driver: the dotted keys are
+ * the application's own settings.
+ */
+public class ConnectionPool {
+
+	private final String url;
+	private final Properties driverProperties;
+
+	private final int maxSize;
+	private final int minIdle;
+	private final long borrowTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final int validationTimeoutSeconds;
+	private final long aliveBypassMillis;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	// LIFO: the most recently used connection is handed out first, the oldest are evicted
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final ScheduledExecutorService evictor;
+	private volatile boolean closed;
+
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong invalidCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final StatementCache.Stats statementStats = new StatementCache.Stats();
+	private final SlowQueryLog slowQueryLog;
+
+	public ConnectionPool(String url, Properties properties) {
+		this.url = url;
+		this.driverProperties = new Properties();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith("driver.")) {
+				driverProperties.setProperty(key.substring("driver.".length()), properties.getProperty(key));
+			} else if (key.indexOf('.') < 0 && !key.equals("dburl")) {
+				driverProperties.setProperty(key, properties.getProperty(key));
+			}
+		}
+		this.maxSize = intProperty(properties, "pool.maxSize", 10);
+		this.minIdle = Math.min(intProperty(properties, "pool.minIdle", 2), maxSize);
+		this.borrowTimeoutMillis = intProperty(properties, "pool.borrowTimeoutMillis", 5000);
+		this.idleTimeoutMillis = intProperty(properties, "pool.idleTimeoutMillis", 300000);
+		this.validationTimeoutSeconds = intProperty(properties, "pool.validationTimeoutSeconds", 2);
+		this.aliveBypassMillis = intProperty(properties, "pool.aliveBypassMillis", 500);
+		this.statementCacheSize = intProperty(properties, "pool.statementCacheSize", 50);
+		this.permits = new Semaphore(maxSize, true);
+		this.slowQueryLog = SlowQueryLog.fromProperties(properties);
+
+		evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "db-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1000, idleTimeoutMillis / 2);
+		evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens connections until minIdle are available, so the first queries
+	 * do not pay the connect cost.
+	 */
+	public void warmUp() {
+		while (!closed && idle.size() < minIdle && totalConnections.get() < maxSize) {
+			idle.offerLast(create());
+		}
+	}
+
+	public Connection borrow() {
+		if (closed) {
+			throw new DbException("Connection pool is closed");
+		}
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				throw new DbException("Timeout waiting for a database connection (" + borrowTimeoutMillis + " ms)");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted waiting for a database connection");
+		}
+
+		try {
+			PooledConnection pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				if (isRecentlyUsed(pooled) || isValid(pooled)) {
+					break;
+				}
+				invalidCount.incrementAndGet();
+				destroy(pooled);
+			}
+			if (pooled == null) {
+				pooled = create();
+			}
+			recordWait(System.nanoTime() - start);
+			return pooled.lease();
+
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			destroy(pooled);
+		}
+		if (slowQueryLog != null) {
+			slowQueryLog.close();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getActiveCount() {
+		return maxSize - permits.availablePermits();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	public int getTotalConnections() {
+		return totalConnections.get();
+	}
+
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public long getInvalidCount() {
+		return invalidCount.get();
+	}
+
+	public long getStatementCacheHits() {
+		return statementStats.hits.get();
+	}
+
+	public long getStatementCacheMisses() {
+		return statementStats.misses.get();
+	}
+
+	public long getStatementCacheEvictions() {
+		return statementStats.evictions.get();
+	}
+
+	public double getAverageWaitMillis() {
+		long count = borrowCount.get();
+		return count == 0 ? 0.0 : totalWaitNanos.get() / (count * 1_000_000.0);
+	}
+
+	public double getMaxWaitMillis() {
+		return maxWaitNanos.get() / 1_000_000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ConnectionPool [active = %d, idle = %d, total = %d, borrows = %d, timeouts = %d, "
+				+ "invalid = %d, avgWait = %.2f ms, maxWait = %.2f ms, statementHits = %d, statementMisses = %d]",
+				getActiveCount(), getIdleCount(), getTotalConnections(), getBorrowCount(), getTimeoutCount(),
+				getInvalidCount(), getAverageWaitMillis(), getMaxWaitMillis(), getStatementCacheHits(),
+				getStatementCacheMisses());
+	}
+
+	private void recordWait(long nanos) {
+		borrowCount.incrementAndGet();
+		totalWaitNanos.addAndGet(nanos);
+		long max;
+		while (nanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, nanos)) {
+		}
+	}
+
+	// A connection given back a moment ago is trusted without a round trip to the database
+	private boolean isRecentlyUsed(PooledConnection pooled) {
+		return System.currentTimeMillis() - pooled.lastUsed <= aliveBypassMillis;
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		try {
+			return pooled.connection.isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private PooledConnection create() {
+		try {
+			Connection connection = DriverManager.getConnection(url, driverProperties);
+			totalConnections.incrementAndGet();
+			return new PooledConnection(connection);
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		}
+	}
+
+	private void destroy(PooledConnection pooled) {
+		totalConnections.decrementAndGet();
+		try {
+			pooled.connection.close();
+		} catch (SQLException e) {
+			// a broken connection is being discarded anyway
+		}
+	}
+
+	private void release(PooledConnection pooled) {
+		try {
+			if (closed || !resetState(pooled.connection)) {
+				destroy(pooled);
+			} else {
+				pooled.lastUsed = System.currentTimeMillis();
+				idle.offerFirst(pooled);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	// Undo whatever the borrower left behind so the next one gets a clean connection
+	private boolean resetState(Connection connection) {
+		try {
+			if (connection.isClosed()) {
+				return false;
+			}
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			return true;
+
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledConnection> it = idle.descendingIterator();
+		while (it.hasNext() && idle.size() > minIdle) {
+			PooledConnection pooled = it.next();
+			if (now - pooled.lastUsed > idleTimeoutMillis && idle.removeLastOccurrence(pooled)) {
+				destroy(pooled);
+			}
+		}
+		if (!closed) {
+			try {
+				warmUp();
+			} catch (DbException e) {
+				// database unreachable right now, the next borrow will report it
+			}
+		}
+	}
+
+	// Statements are timed by the slow query log when it is configured
+	private Statement logged(Statement statement, Object[] args) {
+		if (slowQueryLog == null) {
+			return statement;
+		}
+		String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+		return slowQueryLog.wrap(statement, sql);
+	}
+
+	// Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+	private static boolean isCacheable(Object[] args) {
+		return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+	}
+
+	private static int intProperty(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for " + key + ": " + value);
+		}
+	}
+
+	private class PooledConnection {
+
+		private final Connection connection;
+		private final StatementCache statements;
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.statements = statementCacheSize > 0 ? new StatementCache(connection, statementCacheSize, statementStats)
+					: null;
+		}
+
+		private Connection lease() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new LeaseHandler(this));
+		}
+	}
+
+	// One handler per borrow, so a stale reference cannot touch the connection after close()
+	private class LeaseHandler implements InvocationHandler {
+
+		private PooledConnection pooled;
+
+		private LeaseHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("close")) {
+				if (pooled != null) {
+					PooledConnection returning = pooled;
+					pooled = null;
+					release(returning);
+				}
+				return null;
+			}
+			if (name.equals("isClosed")) {
+				return pooled == null || pooled.connection.isClosed();
+			}
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (name.equals("toString")) {
+				return "PooledConnection[" + (pooled == null ? "closed" : pooled.connection) + "]";
+			}
+			if (pooled == null) {
+				throw new SQLException("Connection was returned to the pool");
+			}
+			if (name.equals("prepareStatement") && pooled.statements != null && isCacheable(args)) {
+				int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+				return logged(pooled.statements.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys),
+						args);
+			}
+			try {
+				Object result = method.invoke(pooled.connection, args);
+				return result instanceof Statement ? logged((Statement) result, args) : result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -5,7 +5,6 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -13,26 +12,46 @@ import java.util.Properties;
 
 public class DB {
 
-	private static Connection connection = null;
+	private static ConnectionPool pool = null;
+	private static Properties properties = null;
 
-	public static Connection getConnection() {
-		if (connection == null) {
-			try {
-				Properties properties = loadProperties();
-				String urlBancoDeDados = properties.getProperty("dburl");
-				connection = DriverManager.getConnection(urlBancoDeDados, properties);
+	public static synchronized Properties getProperties() {
+		if (properties == null) {
+			properties = loadProperties();
+		}
+		return properties;
+	}
 
-			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
-			}
+	public static int getIntProperty(String key, int defaultValue) {
+		String value = getProperties().getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for " + key + ": " + value);
+		}
+	}
+
+	public static synchronized ConnectionPool getPool() {
+		if (pool == null) {
+			Properties properties = getProperties();
+			String urlBancoDeDados = properties.getProperty("dburl");
+			pool = new ConnectionPool(urlBancoDeDados, properties);
 		}
-		return connection;
+		return pool;
+	}
+
+	// Borrows a connection from the pool, give it back with closeConnection(conn)
+	public static Connection getConnection() {
+		return getPool().borrow();
 	}
 
-	public static void closeConnection() {
-		if (connection != null) {
+	public static void closeConnection(Connection conn) {
+		if (conn != null) {
 			try {
-				connection.close();
+				conn.close();
 
 			} catch (SQLException e) {
 				throw new DbException(e.getMessage());
@@ -40,6 +59,13 @@ public class DB {
 		}
 	}
 
+	public static synchronized void closePool() {
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
+	}
+
 	private static Properties loadProperties() {
 		try (FileInputStream fs = new FileInputStream("db.properties")) {
 			Properties props = new Properties();
@@ -51,6 +77,17 @@ public class DB {
 		}
 	}
 
+	public static void rollback(Connection conn) {
+		if (conn != null) {
+			try {
+				conn.rollback();
+
+			} catch (SQLException e) {
+				throw new DbException("Error trying to rollback! Caused by: " + e.getMessage());
+			}
+		}
+	}
+
 	public static void closeStatement(Statement st) {
 		if (st != null) {
 			try {
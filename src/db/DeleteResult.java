@@ -0,0 +1,46 @@
+package db;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk delete: the ids that were deleted and, for each row that
+ * could not be deleted because other rows still reference it, the reason.
+ */
+public class DeleteResult {
+
+	private final List<Integer> deletedIds;
+	private final int rowsAffected;
+	private final Map<Integer, DbIntegrityException> failures;
+
+	public DeleteResult(List<Integer> deletedIds, int rowsAffected, Map<Integer, DbIntegrityException> failures) {
+		this.deletedIds = Collections.unmodifiableList(deletedIds);
+		this.rowsAffected = rowsAffected;
+		this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+	}
+
+	// Ids that are no longer in the table, including any that were already gone
+	public List<Integer> getDeletedIds() {
+		return deletedIds;
+	}
+
+	public int getRowsAffected() {
+		return rowsAffected;
+	}
+
+	public Map<Integer, DbIntegrityException> getFailures() {
+		return failures;
+	}
+
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "DeleteResult [deleted = " + deletedIds.size() + ", rowsAffected = " + rowsAffected + ", failures = "
+				+ failures.keySet() + "]";
+	}
+}
@@ -0,0 +1,40 @@
+package db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the current row of a ResultSet to an object, reading columns by
+ * ordinal. Mappers are built per query by a {@link Factory}, which resolves
+ * the ordinals once from the ResultSet metadata instead of looking every cell
+ * up by name.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+	T mapRow(ResultSet rs) throws SQLException;
+
+	@FunctionalInterface
+	interface Factory<T> {
+		RowMapper<T> create(ColumnIndex columns) throws SQLException;
+	}
+
+	static <T> List<T> mapAll(ResultSet rs, Factory<T> factory) throws SQLException {
+		RowMapper<T> mapper = factory.create(ColumnIndex.of(rs));
+		List<T> list = new ArrayList<>();
+		while (rs.next()) {
+			list.add(mapper.mapRow(rs));
+		}
+		return list;
+	}
+
+	// First row or null when the query returned nothing
+	static <T> T mapFirst(ResultSet rs, Factory<T> factory) throws SQLException {
+		if (!rs.next()) {
+			return null;
+		}
+		return factory.create(ColumnIndex.of(rs)).mapRow(rs);
+	}
+}
@@ -0,0 +1,256 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the statements that take longer than a threshold, with their bound
+ * parameters, elapsed time, row count and the DAO method that ran them.
+ *
+ * The pool wraps the statements it hands out with {@link #wrap}. For queries
+ * the time is the execute call plus the time spent inside next() fetching the
+ * rows, both logged; what the caller does between rows is not counted, so a
+ * slow consumer streaming a fast query is not reported. The line is written
+ * when the ResultSet is closed. The ResultSet is a plain
+ * {@link DelegatingResultSet} that only times next() and watches close():
+ * column reads cost one extra method call, no reflection.
+ * Lines go through an {@link AsyncFileAppender}: a slow statement costs a
+ * string and a queue offer, a fast one only the parameter bookkeeping.
+ *
+ * Configured by the "slowQuery.*" keys of db.properties; a threshold below
+ * zero turns it off.
+ */
+public class SlowQueryLog {
+
+	private static final int MAX_VALUE_LENGTH = 100;
+
+	private final long thresholdNanos;
+	private final AsyncFileAppender appender;
+
+	public SlowQueryLog(long thresholdMillis, AsyncFileAppender appender) {
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.appender = appender;
+	}
+
+	// null when slowQuery.thresholdMillis is missing or negative
+	public static SlowQueryLog fromProperties(Properties properties) {
+		String threshold = properties.getProperty("slowQuery.thresholdMillis");
+		try {
+			if (threshold == null || threshold.trim().isEmpty() || Long.parseLong(threshold.trim()) < 0) {
+				return null;
+			}
+			String file = properties.getProperty("slowQuery.file", "logs/slow-queries.log");
+			long maxBytes = Long.parseLong(properties.getProperty("slowQuery.maxFileSizeKb", "10240").trim()) * 1024;
+			int maxFiles = Integer.parseInt(properties.getProperty("slowQuery.maxFiles", "5").trim());
+			return new SlowQueryLog(Long.parseLong(threshold.trim()),
+					new AsyncFileAppender(Paths.get(file), maxBytes, maxFiles, 10000));
+
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid slowQuery setting in db.properties: " + e.getMessage());
+		}
+	}
+
+	public void close() {
+		appender.close();
+	}
+
+	// sql is null for plain Statements, it is taken from execute(sql) then
+	public Statement wrap(Statement statement, String sql) {
+		Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+		for (Class<?> candidate : statement.getClass().getInterfaces()) {
+			if (candidate == java.sql.CallableStatement.class) {
+				type = candidate;
+			}
+		}
+		return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+				new StatementHandler(statement, sql));
+	}
+
+	// fetchNanos is -1 for statements that return no ResultSet
+	private void record(long executeNanos, long fetchNanos, String sql, Map<Integer, Object> params, int batchSize,
+			long rows) {
+		long elapsedNanos = executeNanos + Math.max(fetchNanos, 0);
+		if (elapsedNanos < thresholdNanos) {
+			return;
+		}
+		StringBuilder line = new StringBuilder();
+		line.append(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)).append(" ");
+		line.append(String.format("%.1f ms", elapsedNanos / 1_000_000.0));
+		if (fetchNanos >= 0) {
+			line.append(String.format(" execute=%.1f fetch=%.1f", executeNanos / 1_000_000.0,
+					fetchNanos / 1_000_000.0));
+		}
+		line.append(" rows=").append(rows < 0 ? "?" : String.valueOf(rows));
+		line.append(" caller=").append(caller());
+		line.append(" sql=[").append(sql == null ? "" : sql.replaceAll("\\s+", " ").trim()).append("]");
+		if (batchSize > 0) {
+			line.append(" batch=").append(batchSize).append(" last");
+		}
+		line.append(" params=").append(formatParams(params));
+		appender.append(line.toString());
+	}
+
+	// First frame outside the JDBC plumbing, normally the DAO method
+	private static String caller() {
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+			String name = frame.getClassName();
+			if (name.startsWith("db.") || name.startsWith("java.") || name.startsWith("javax.")
+					|| name.startsWith("jdk.") || name.startsWith("sun.") || name.startsWith("com.sun.")
+					|| name.contains("$Proxy")) {
+				continue;
+			}
+			String simpleName = name.substring(name.lastIndexOf('.') + 1);
+			return simpleName + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+		}
+		return "?";
+	}
+
+	private static String formatParams(Map<Integer, Object> params) {
+		StringBuilder sb = new StringBuilder("{");
+		for (Map.Entry<Integer, Object> param : params.entrySet()) {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			Object value = param.getValue();
+			String text = value == null ? "NULL" : value.toString();
+			if (text.length() > MAX_VALUE_LENGTH) {
+				text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+			}
+			sb.append(param.getKey()).append("=");
+			if (value instanceof String) {
+				sb.append("'").append(text).append("'");
+			} else {
+				sb.append(text);
+			}
+		}
+		return sb.append("}").toString();
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private class StatementHandler implements InvocationHandler {
+
+		private final Statement statement;
+		private String sql;
+		private final Map<Integer, Object> params = new TreeMap<>();
+		private int batchSize;
+
+		private StatementHandler(Statement statement, String sql) {
+			this.statement = statement;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			} else if (name.equals("clearParameters")) {
+				params.clear();
+			} else if (name.equals("addBatch") && (args == null || args.length == 0)) {
+				batchSize++;
+			} else if (name.equals("clearBatch")) {
+				batchSize = 0;
+			} else if (name.startsWith("execute")) {
+				return execute(proxy, method, args);
+			}
+			return invokeTarget(statement, method, args);
+		}
+
+		private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+			String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+			String name = method.getName();
+			long start = System.nanoTime();
+			Object result = invokeTarget(statement, method, args);
+			long elapsed = System.nanoTime() - start;
+
+			if (result instanceof ResultSet) {
+				// the rows are read after executeQuery returns, logged when the ResultSet is closed
+				return new TimedResultSet((ResultSet) result, (Statement) proxy, elapsed, text, new TreeMap<>(params));
+			}
+			long rows = -1;
+			if (result instanceof Integer || result instanceof Long) {
+				rows = ((Number) result).longValue();
+			} else if (result instanceof int[]) {
+				rows = 0;
+				for (int count : (int[]) result) {
+					rows += Math.max(count, 0);
+				}
+			} else if (result instanceof long[]) {
+				rows = 0;
+				for (long count : (long[]) result) {
+					rows += Math.max(count, 0);
+				}
+			}
+			record(elapsed, -1, text, params, name.endsWith("Batch") ? batchSize : 0, rows);
+			if (name.endsWith("Batch")) {
+				batchSize = 0;
+			}
+			return result;
+		}
+	}
+
+	private class TimedResultSet extends DelegatingResultSet {
+
+		private final Statement statement;
+		private final long executeNanos;
+		private final String sql;
+		private final Map<Integer, Object> params;
+		private long fetchNanos;
+		private long rows;
+		private boolean logged;
+
+		private TimedResultSet(ResultSet resultSet, Statement statement, long executeNanos, String sql,
+				Map<Integer, Object> params) {
+			super(resultSet);
+			this.statement = statement;
+			this.executeNanos = executeNanos;
+			this.sql = sql;
+			this.params = params;
+		}
+
+		@Override
+		public boolean next() throws SQLException {
+			long start = System.nanoTime();
+			boolean hasRow = resultSet.next();
+			fetchNanos += System.nanoTime() - start;
+			if (hasRow) {
+				rows++;
+			}
+			return hasRow;
+		}
+
+		@Override
+		public void close() throws SQLException {
+			if (!logged) {
+				logged = true;
+				record(executeNanos, fetchNanos, sql, params, 0, rows);
+			}
+			resultSet.close();
+		}
+
+		@Override
+		public Statement getStatement() throws SQLException {
+			return statement;
+		}
+	}
+}
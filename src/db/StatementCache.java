@@ -0,0 +1,152 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of PreparedStatements for one physical connection, keyed by the
+ * SQL text. Statements handed out are proxies: close() only clears the
+ * parameters and pending batch and gives the statement back to the cache, so the server side
+ * prepared handle is reused by the next call with the same SQL.
+ */
+class StatementCache {
+
+	static class Stats {
+		final AtomicLong hits = new AtomicLong();
+		final AtomicLong misses = new AtomicLong();
+		final AtomicLong evictions = new AtomicLong();
+	}
+
+	private final int maxSize;
+	private final Stats stats;
+	private final Connection physical;
+	private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(Connection physical, int maxSize, Stats stats) {
+		this.physical = physical;
+		this.maxSize = maxSize;
+		this.stats = stats;
+	}
+
+	synchronized PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys + ":" + sql;
+		CachedStatement cached = statements.get(key);
+		if (cached != null && !cached.inUse) {
+			stats.hits.incrementAndGet();
+			return cached.checkOut(owner);
+		}
+		stats.misses.incrementAndGet();
+		PreparedStatement st = autoGeneratedKeys == Statement.NO_GENERATED_KEYS ? physical.prepareStatement(sql)
+				: physical.prepareStatement(sql, autoGeneratedKeys);
+		if (cached != null) {
+			// same SQL already open in this lease (nested use), hand out a plain statement
+			return st;
+		}
+		cached = new CachedStatement(st);
+		statements.put(key, cached);
+		evictEldest();
+		return cached.checkOut(owner);
+	}
+
+	private void evictEldest() {
+		Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+		while (statements.size() > maxSize && it.hasNext()) {
+			CachedStatement eldest = it.next().getValue();
+			it.remove();
+			stats.evictions.incrementAndGet();
+			eldest.evicted = true;
+			if (!eldest.inUse) {
+				eldest.closeQuietly();
+			}
+		}
+	}
+
+	private synchronized void checkIn(CachedStatement cached) {
+		cached.inUse = false;
+		cached.owner = null;
+		try {
+			if (cached.evicted) {
+				cached.closeQuietly();
+			} else {
+				cached.statement.clearParameters();
+				cached.statement.clearBatch();
+			}
+		} catch (SQLException e) {
+			statements.values().remove(cached);
+			cached.closeQuietly();
+		}
+	}
+
+	private class CachedStatement implements InvocationHandler {
+
+		private final PreparedStatement statement;
+		private final PreparedStatement proxy;
+		private Connection owner;
+		private boolean inUse;
+		private boolean evicted;
+
+		private CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, this);
+		}
+
+		private PreparedStatement checkOut(Connection owner) {
+			this.owner = owner;
+			this.inUse = true;
+			return proxy;
+		}
+
+		private void closeQuietly() {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				// statement is being discarded
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("close")) {
+				if (inUse) {
+					checkIn(this);
+				}
+				return null;
+			}
+			if (name.equals("isClosed")) {
+				return !inUse;
+			}
+			if (name.equals("getConnection")) {
+				return owner;
+			}
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (name.equals("toString")) {
+				return "CachedStatement[" + statement + "]";
+			}
+			if (!inUse) {
+				throw new SQLException("Statement is closed");
+			}
+			try {
+				return method.invoke(statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
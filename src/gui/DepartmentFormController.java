@@ -1,14 +1,13 @@
 package gui;
 
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.DbException;
+import gui.listener.DataChangeEvent;
 import gui.listener.DataChangeListener;
+import gui.listener.DataChangeNotifier;
 import gui.util.Alerts;
 import gui.util.Constraints;
 import gui.util.Utils;
@@ -19,6 +18,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.entities.Department;
 import model.exception.ValidationException;
 import model.services.DepartmentService;
@@ -26,9 +26,11 @@ import model.services.DepartmentService;
 public class DepartmentFormController implements Initializable{
 
 	private Department department;
+	// bumped each time the form is bound to an entity, async results for an older binding are dropped
+	private int bindGeneration;
 	private DepartmentService depService;
 	
-	private List<DataChangeListener> dataChangeListener = new ArrayList<>();
+	private DataChangeNotifier dataChangeNotifier = new DataChangeNotifier();
 
 	@FXML
 	private TextField txtId;
@@ -43,6 +45,7 @@ public class DepartmentFormController implements Initializable{
 
 	public void setDeparment(Department department) {
 		this.department = department;
+		bindGeneration++;
 	}
 
 	public void setDepartmentService(DepartmentService service) {
@@ -50,7 +53,7 @@ public class DepartmentFormController implements Initializable{
 	}
 	
 	public void subScribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListener.add(listener);
+		dataChangeNotifier.subscribe(listener);
 	}
 
 	@FXML
@@ -64,24 +67,35 @@ public class DepartmentFormController implements Initializable{
 
 		try {
 			department = getFormData();
-			depService.saveOrUpdate(department);
-			notifyDataChangeListener();
-			Utils.currentStage(event).close();
+			Department saving = department;
+			boolean inserting = saving.getId() == null;
+			int generation = bindGeneration;
+			Stage stage = Utils.currentStage(event);
+			btSave.setDisable(true);
+			depService.saveOrUpdateAsync(saving).whenCompleteAsync((v, error) -> {
+				// the dialog was closed and opened for another row meanwhile: leave that one alone
+				boolean current = generation == bindGeneration;
+				if (current) {
+					btSave.setDisable(false);
+				}
+				if (error != null) {
+					Alerts.showAlert("Error saving object", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+					return;
+				}
+				// the save went through either way, the lists still need to know
+				notifyDataChangeListener(inserting ? DataChangeEvent.inserted(saving) : DataChangeEvent.updated(saving));
+				if (current) {
+					stage.close();
+				}
+			}, Utils.fxThread());
 
 		}catch (ValidationException e) {
 			setErrorMessage(e.getErros());
-			
-		} catch (DbException e) {
-			Alerts.showAlert("Error saving object", null, e.getMessage(), AlertType.ERROR);
 		}
 	}
 
-	private void notifyDataChangeListener() {
-		
-		for(DataChangeListener listener : dataChangeListener) {
-			listener.onDataChanged();
-		}
-		
+	private void notifyDataChangeListener(DataChangeEvent<Department> event) {
+		dataChangeNotifier.fire(event);
 	}
 
 	private Department getFormData() {
@@ -124,6 +138,9 @@ public class DepartmentFormController implements Initializable{
 		}
 		txtId.setText(String.valueOf(department.getId()));
 		txtName.setText(department.getName());
+		// the form is reused, clear what the previous use left
+		labelErrorName.setText("");
+		btSave.setDisable(false);
 	}
 	
 	private void setErrorMessage(Map<String, String> errors) {
@@ -2,38 +2,46 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
 import application.Main;
-import db.DbIntegrityException;
+import gui.listener.DataChangeEvent;
 import gui.listener.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.DialogManager;
 import gui.util.Utils;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
-import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.entities.Department;
 import model.services.DepartmentService;
 
 public class DepartmentListController implements Initializable, DataChangeListener {
 
+	private static final Comparator<Department> BY_NAME = Comparator.comparing(Department::getName,
+			String.CASE_INSENSITIVE_ORDER);
+
 	private DepartmentService departmentService;
 
 	@FXML
@@ -48,8 +56,12 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	private TableColumn<Department, Department> tableColumnREMOVE;
 	@FXML
 	private Button btNew;
+	@FXML
+	private Button btDeleteSelected;
 
 	private ObservableList<Department> obsList;
+	// The form is built on first use and reused afterwards
+	private final DialogManager dialogs = new DialogManager();
 
 	@FXML
 	public void onButtonNewAction(ActionEvent event) {
@@ -58,6 +70,41 @@ public class DepartmentListController implements Initializable, DataChangeListen
 		createDialogForm(depart, "/gui/DepartmentForm.fxml", parentStage);
 	}
 
+	@FXML
+	public void onButtonDeleteSelectedAction(ActionEvent event) {
+		List<Department> selected = new ArrayList<>(tableViewDepartment.getSelectionModel().getSelectedItems());
+		if (selected.isEmpty()) {
+			return;
+		}
+		Optional<ButtonType> result = Alerts.showConfirmation("Confirmation",
+				"Delete the " + selected.size() + " selected departments?");
+		if (result.get() != ButtonType.OK) {
+			return;
+		}
+		if (departmentService == null) {
+			throw new IllegalStateException("Service was null");
+		}
+		departmentService.removeAllAsync(selected).whenCompleteAsync((deleteResult, error) -> {
+			if (error != null) {
+				Alerts.showAlert("Error remove objects", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			Map<Integer, Department> byId = new HashMap<>();
+			for (Department obj : selected) {
+				byId.put(obj.getId(), obj);
+			}
+			List<DataChangeEvent<?>> events = new ArrayList<>();
+			for (Integer id : deleteResult.getDeletedIds()) {
+				events.add(DataChangeEvent.deleted(byId.get(id)));
+			}
+			onDataChanged(events);
+			if (deleteResult.hasFailures()) {
+				Alerts.showDeleteFailures("Some departments were not deleted", deleteResult,
+						id -> byId.get(id).getName());
+			}
+		}, Utils.fxThread());
+	}
+
 	@Override
 	public void initialize(URL url, ResourceBundle resources) {
 		initializeNodes();
@@ -74,6 +121,14 @@ public class DepartmentListController implements Initializable, DataChangeListen
 		// Faz o tableView acompanhar o tamanho da tela
 		Stage stage = (Stage) Main.getMainScene().getWindow();
 		tableViewDepartment.prefHeightProperty().bind(stage.heightProperty());
+
+		// Once, the view and its cells are kept between visits
+		initEditButtons();
+		initRemoveButtons();
+
+		tableViewDepartment.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+		btDeleteSelected.disableProperty()
+				.bind(Bindings.isEmpty(tableViewDepartment.getSelectionModel().getSelectedItems()));
 	}
 
 	public void updateTableView() {
@@ -81,31 +136,30 @@ public class DepartmentListController implements Initializable, DataChangeListen
 			throw new IllegalStateException("Service estava nulo");
 		}
 
-		List<Department> list = departmentService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		tableViewDepartment.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		tableViewDepartment.setPlaceholder(new Label("Loading..."));
+		departmentService.findAllAsync().whenCompleteAsync((list, error) -> {
+			tableViewDepartment.setPlaceholder(new Label("No departments"));
+			if (error != null) {
+				Alerts.showAlert("Error loading departments", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			obsList = FXCollections.observableArrayList(list);
+			tableViewDepartment.setItems(obsList);
+		}, Utils.fxThread());
 	}
 
 	private void createDialogForm(Department depart, String absouteName, Stage parentStage) {
 
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absouteName));
-			Pane pane = loader.load();
-			DepartmentFormController departmentFormController = loader.getController();
+			DialogManager.Dialog<DepartmentFormController> dialog = dialogs.get(absouteName,
+					"Enter department data", parentStage, (DepartmentFormController controller) -> {
+						controller.setDepartmentService(new DepartmentService());
+						controller.subScribeDataChangeListener(this);
+					});
+			DepartmentFormController departmentFormController = dialog.getController();
 			departmentFormController.setDeparment(depart);
-			departmentFormController.setDepartmentService(new DepartmentService());
-			departmentFormController.subScribeDataChangeListener(this);
 			departmentFormController.updateFormData();
-
-			Stage dialogStage = new Stage();
-			dialogStage.setTitle("Enter department data");
-			dialogStage.setScene(new Scene(pane));
-			dialogStage.setResizable(false);
-			dialogStage.initOwner(parentStage);
-			dialogStage.initModality(Modality.WINDOW_MODAL);//
-			dialogStage.showAndWait();
+			dialog.showAndWait();
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -118,6 +172,27 @@ public class DepartmentListController implements Initializable, DataChangeListen
 		updateTableView();
 	}
 
+	// Patches only the affected rows, no query needed
+	@Override
+	public void onDataChanged(List<DataChangeEvent<?>> events) {
+		if (obsList == null) {
+			updateTableView();
+			return;
+		}
+		for (DataChangeEvent<?> event : events) {
+			if (!(event.getEntity() instanceof Department)) {
+				continue;
+			}
+			Department obj = (Department) event.getEntity();
+			obsList.remove(obj);
+			if (event.getType() != DataChangeEvent.Type.DELETED) {
+				// same order as findAll (ORDER BY Name)
+				int pos = Collections.binarySearch(obsList, obj, BY_NAME);
+				obsList.add(pos < 0 ? -pos - 1 : pos, obj);
+			}
+		}
+	}
+
 	private void initEditButtons() {
 		tableColumnEDIT.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
 		tableColumnEDIT.setCellFactory(param -> new TableCell<Department, Department>() {
@@ -162,13 +237,13 @@ public class DepartmentListController implements Initializable, DataChangeListen
 			if (departmentService == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				departmentService.remove(obj);
-				updateTableView();
-			
-			} catch (DbIntegrityException e) {
-				Alerts.showAlert("Error remove object", null, e.getMessage(), AlertType.ERROR);
-			}
+			departmentService.removeAsync(obj).whenCompleteAsync((v, error) -> {
+				if (error != null) {
+					Alerts.showAlert("Error remove object", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				} else {
+					obsList.remove(obj);
+				}
+			}, Utils.fxThread());
 		}
 		
 	}
@@ -0,0 +1,111 @@
+package gui;
+
+import java.net.URL;
+import java.util.ResourceBundle;
+
+import application.Main;
+import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import model.entities.DepartmentStatistics;
+import model.services.DepartmentService;
+
+/**
+ * Seller count, salaries and age groups per department. The figures come
+ * from one GROUP BY query, so the view costs the same however many sellers
+ * there are, and they are cached until a seller or department is written.
+ */
+public class DepartmentStatisticsController implements Initializable {
+
+	private DepartmentService departmentService;
+
+	@FXML
+	private TableView<DepartmentStatistics> tableViewStatistics;
+	@FXML
+	private TableColumn<DepartmentStatistics, String> tableColumnDepartment;
+	@FXML
+	private TableColumn<DepartmentStatistics, Integer> tableColumnSellerCount;
+	@FXML
+	private TableColumn<DepartmentStatistics, Double> tableColumnTotalSalary;
+	@FXML
+	private TableColumn<DepartmentStatistics, Double> tableColumnAverageSalary;
+	@FXML
+	private TableColumn<DepartmentStatistics, Double> tableColumnMinSalary;
+	@FXML
+	private TableColumn<DepartmentStatistics, Double> tableColumnMaxSalary;
+	@FXML
+	private TableColumn<DepartmentStatistics, Integer> tableColumnAge;
+	@FXML
+	private Button btRefresh;
+
+	@FXML
+	public void onButtonRefreshAction(ActionEvent event) {
+		updateTableView();
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle resources) {
+		initializeNodes();
+	}
+
+	public void setDepartmentService(DepartmentService service) {
+		this.departmentService = service;
+	}
+
+	private void initializeNodes() {
+		tableColumnDepartment.setCellValueFactory(new PropertyValueFactory<>("departmentName"));
+		tableColumnSellerCount.setCellValueFactory(new PropertyValueFactory<>("sellerCount"));
+		tableColumnTotalSalary.setCellValueFactory(new PropertyValueFactory<>("totalSalary"));
+		Utils.formatTableColumnDouble(tableColumnTotalSalary, 2);
+		tableColumnAverageSalary.setCellValueFactory(new PropertyValueFactory<>("averageSalary"));
+		Utils.formatTableColumnDouble(tableColumnAverageSalary, 2);
+		tableColumnMinSalary.setCellValueFactory(new PropertyValueFactory<>("minSalary"));
+		Utils.formatTableColumnDouble(tableColumnMinSalary, 2);
+		tableColumnMaxSalary.setCellValueFactory(new PropertyValueFactory<>("maxSalary"));
+		Utils.formatTableColumnDouble(tableColumnMaxSalary, 2);
+
+		// One nested column per age group, the groups are defined by DepartmentStatistics
+		for (int i = 0; i < DepartmentStatistics.getAgeGroupCount(); i++) {
+			int group = i;
+			TableColumn<DepartmentStatistics, Integer> column = new TableColumn<>(
+					DepartmentStatistics.getAgeGroupLabel(group));
+			column.setPrefWidth(55.0);
+			column.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue().getAgeCount(group)));
+			tableColumnAge.getColumns().add(column);
+		}
+
+		// Faz o tableView acompanhar o tamanho da tela
+		Stage stage = (Stage) Main.getMainScene().getWindow();
+		tableViewStatistics.prefHeightProperty().bind(stage.heightProperty());
+	}
+
+	public void updateTableView() {
+		if (departmentService == null) {
+			throw new IllegalStateException("Service estava nulo");
+		}
+
+		tableViewStatistics.setPlaceholder(new Label("Loading..."));
+		btRefresh.setDisable(true);
+		departmentService.findStatisticsAsync().whenCompleteAsync((list, error) -> {
+			tableViewStatistics.setPlaceholder(new Label("No departments"));
+			btRefresh.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error loading statistics", null, Utils.unwrap(error).getMessage(),
+						AlertType.ERROR);
+				return;
+			}
+			tableViewStatistics.setItems(FXCollections.observableArrayList(list));
+		}, Utils.fxThread());
+	}
+}
@@ -2,13 +2,16 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.Consumer;
 
 import application.Main;
 import gui.util.Alerts;
+import gui.util.ViewCache;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -26,8 +29,13 @@ public class MainViewController implements Initializable {
 	@FXML
 	private MenuItem menuItemDepartment;
 	@FXML
+	private MenuItem menuItemStatistics;
+	@FXML
 	private MenuItem menuItemAbout;
 
+	// Views are built once and swapped in and out of the main window
+	private final ViewCache views = new ViewCache();
+
 	@FXML
 	public void onMenuItemSellerAction() {// Usando expresso lambda para evitar escrever varios metodos para abrir
 										  // tela
@@ -46,6 +54,14 @@ public class MainViewController implements Initializable {
 		});
 	}
 
+	@FXML
+	public void onMenuItemStatisticsAction() {
+		loadView("/gui/DepartmentStatistics.fxml", (DepartmentStatisticsController controller) -> {
+			controller.setDepartmentService(new DepartmentService());
+			controller.updateTableView();
+		});
+	}
+
 	@FXML
 	public void onMenuItemAboutAction() {
 		loadView("/gui/About.fxml", x -> {
@@ -54,28 +70,27 @@ public class MainViewController implements Initializable {
 
 	@Override
 	public void initialize(URL url, ResourceBundle resources) {
-		// TODO Auto-generated method stub
-
+		// After start() has shown the window, so the preloaded controllers can find it
+		Platform.runLater(() -> views.preload("/gui/SellerList.fxml", "/gui/DepartmentList.fxml", "/gui/About.fxml"));
 	}
 
 	// Mtodo que adiciona a tela about no MainView
 	private synchronized <T> void loadView(String absoluteName, Consumer<T> initializingAction) {
 
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-			VBox newVBox = loader.load();
+			ViewCache.View<T> view = views.get(absoluteName);
 
 			Scene mainScene = Main.getMainScene();
 			// Acessando conteudo do ScrollPane, tela principal
 			VBox mainVBox = (VBox) ((ScrollPane) mainScene.getRoot()).getContent();
 
 			Node mainMenu = mainVBox.getChildren().get(0);
-			mainVBox.getChildren().clear();
-			mainVBox.getChildren().add(mainMenu);
-			mainVBox.getChildren().addAll(newVBox.getChildren());
+			List<Node> children = new ArrayList<>();
+			children.add(mainMenu);
+			children.addAll(view.getNodes());
+			mainVBox.getChildren().setAll(children);
 
-			T controller = loader.getController();
-			initializingAction.accept(controller);
+			initializingAction.accept(view.getController());
 			
 
 		} catch (IOException e) {
@@ -0,0 +1,183 @@
+package gui;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+import gui.util.Alerts;
+import gui.util.Constraints;
+import gui.util.Utils;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.RadioButton;
+import javafx.scene.control.TextField;
+import javafx.stage.Stage;
+import model.dao.SalaryAdjustment;
+import model.dao.SellerCriteria;
+import model.entities.Department;
+import model.services.DepartmentService;
+import model.services.SellerService;
+
+/**
+ * Raises or cuts the salary of many sellers at once: every seller of a
+ * department (or of all of them), optionally only the ones matching the
+ * search shown in the list. The change is made by one UPDATE in the database.
+ */
+public class SalaryAdjustmentFormController implements Initializable {
+
+	@FunctionalInterface
+	public interface AdjustmentListener {
+		void onSalariesAdjusted(int rowsAffected);
+	}
+
+	private SellerService sellerService;
+	private DepartmentService departmentService;
+	private AdjustmentListener listener;
+	// the search shown in the seller list when the form was opened
+	private SellerCriteria searchCriteria = SellerCriteria.any();
+
+	@FXML
+	private ComboBox<Department> comboBoxDepartment;
+	@FXML
+	private CheckBox chkCurrentSearch;
+	@FXML
+	private RadioButton rbPercent;
+	@FXML
+	private RadioButton rbAmount;
+	@FXML
+	private TextField txtValue;
+	@FXML
+	private Label labelErrorValue;
+	@FXML
+	private Button btApply;
+	@FXML
+	private Button btCancel;
+
+	public void setServices(SellerService sellerService, DepartmentService departmentService) {
+		this.sellerService = sellerService;
+		this.departmentService = departmentService;
+	}
+
+	public void setAdjustmentListener(AdjustmentListener listener) {
+		this.listener = listener;
+	}
+
+	public void setSearchCriteria(SellerCriteria searchCriteria) {
+		this.searchCriteria = searchCriteria;
+	}
+
+	@FXML
+	public void onBtApplyAction(ActionEvent event) {
+		if (sellerService == null) {
+			throw new IllegalStateException("Service was null");
+		}
+
+		Double value = Utils.tryParseToDouble(txtValue.getText());
+		if (value == null || value == 0) {
+			labelErrorValue.setText("Enter a value");
+			return;
+		}
+		SalaryAdjustment adjustment;
+		try {
+			adjustment = rbPercent.isSelected() ? SalaryAdjustment.percent(value) : SalaryAdjustment.amount(value);
+		} catch (IllegalArgumentException e) {
+			labelErrorValue.setText("Invalid value");
+			return;
+		}
+		labelErrorValue.setText("");
+
+		SellerCriteria criteria = getCriteria();
+		Department department = comboBoxDepartment.getValue();
+		Optional<ButtonType> result = Alerts.showConfirmation("Confirmation",
+				"Adjust by " + adjustment + " the salary of every seller"
+						+ (department == null ? "" : " of " + department.getName())
+						+ (chkCurrentSearch.isSelected() ? " matching the search" : "") + "?");
+		if (result.get() != ButtonType.OK) {
+			return;
+		}
+
+		Stage stage = Utils.currentStage(event);
+		btApply.setDisable(true);
+		sellerService.adjustSalariesAsync(criteria, adjustment).whenCompleteAsync((rowsAffected, error) -> {
+			btApply.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error adjusting salaries", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			stage.close();
+			if (listener != null) {
+				listener.onSalariesAdjusted(rowsAffected);
+			}
+		}, Utils.fxThread());
+	}
+
+	@FXML
+	public void onBtCancelAction(ActionEvent event) {
+		Utils.currentStage(event).close();
+	}
+
+	@Override
+	public void initialize(URL location, ResourceBundle resources) {
+		Constraints.setTextFieldSignedDouble(txtValue);
+		Constraints.setTextFieldMaxLength(txtValue, 15);
+
+		// null stands for every department
+		Utils.formatComboBox(comboBoxDepartment, SalaryAdjustmentFormController::departmentName);
+	}
+
+	// Resets the form for a new use and loads the departments
+	public void loadFormData() {
+		if (departmentService == null) {
+			throw new IllegalStateException("Department Service estava nulo");
+		}
+		txtValue.setText("");
+		labelErrorValue.setText("");
+		rbPercent.setSelected(true);
+		chkCurrentSearch.setSelected(false);
+		chkCurrentSearch.setDisable(searchCriteria.isEmpty());
+
+		btApply.setDisable(true);
+		departmentService.findAllAsync().whenCompleteAsync((list, error) -> {
+			btApply.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error loading form", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			List<Department> items = new ArrayList<>(list.size() + 1);
+			items.add(null);
+			items.addAll(list);
+			comboBoxDepartment.setItems(FXCollections.observableArrayList(items));
+			comboBoxDepartment.getSelectionModel().selectFirst();
+		}, Utils.fxThread());
+	}
+
+	private SellerCriteria getCriteria() {
+		SellerCriteria criteria = SellerCriteria.any();
+		if (chkCurrentSearch.isSelected()) {
+			criteria.withNamePrefix(searchCriteria.getNamePrefix())
+					.withEmailPrefix(searchCriteria.getEmailPrefix())
+					.withDepartmentId(searchCriteria.getDepartmentId())
+					.withSalaryRange(searchCriteria.getMinSalary(), searchCriteria.getMaxSalary())
+					.withBirthDateRange(searchCriteria.getBirthDateFrom(), searchCriteria.getBirthDateTo());
+		}
+		Department department = comboBoxDepartment.getValue();
+		if (department != null) {
+			criteria.withDepartmentId(department.getId());
+		}
+		return criteria;
+	}
+
+	private static String departmentName(Department department) {
+		return department == null ? "All departments" : department.getName();
+	}
+}
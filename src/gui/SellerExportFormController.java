@@ -0,0 +1,138 @@
+package gui;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+
+import gui.util.Alerts;
+import gui.util.ProgressDialog;
+import gui.util.Utils;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.RadioButton;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import model.dao.SellerCriteria;
+import model.entities.Department;
+import model.services.DepartmentService;
+import model.services.SellerExporter;
+import model.services.SellerService;
+
+/**
+ * Exports the sellers, all of them or one department, to a CSV or JSON file.
+ * The form closes when the file is chosen; the export then runs in the
+ * background with a progress window that can cancel it.
+ */
+public class SellerExportFormController implements Initializable {
+
+	private SellerService sellerService;
+	private DepartmentService departmentService;
+
+	@FXML
+	private ComboBox<Department> comboBoxDepartment;
+	@FXML
+	private RadioButton rbCsv;
+	@FXML
+	private RadioButton rbJson;
+	@FXML
+	private CheckBox chkGzip;
+	@FXML
+	private Button btExport;
+	@FXML
+	private Button btCancel;
+
+	public void setServices(SellerService sellerService, DepartmentService departmentService) {
+		this.sellerService = sellerService;
+		this.departmentService = departmentService;
+	}
+
+	@FXML
+	public void onBtExportAction(ActionEvent event) {
+		if (sellerService == null) {
+			throw new IllegalStateException("Service was null");
+		}
+		SellerExporter.Format format = rbJson.isSelected() ? SellerExporter.Format.JSON : SellerExporter.Format.CSV;
+		boolean gzip = chkGzip.isSelected();
+		String extension = (format == SellerExporter.Format.JSON ? ".json" : ".csv") + (gzip ? ".gz" : "");
+
+		Stage stage = Utils.currentStage(event);
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Export sellers");
+		chooser.setInitialFileName("sellers" + extension);
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(format + " files", "*" + extension));
+		File file = chooser.showSaveDialog(stage);
+		if (file == null) {
+			return;
+		}
+
+		Department department = comboBoxDepartment.getValue();
+		SellerCriteria criteria = SellerCriteria.any()
+				.withDepartmentId(department == null ? null : department.getId());
+		Window owner = stage.getOwner();
+		stage.close();
+		export(owner, file, format, gzip, criteria);
+	}
+
+	private void export(Window owner, File file, SellerExporter.Format format, boolean gzip, SellerCriteria criteria) {
+		SellerExporter exporter = sellerService.newExporter();
+		ProgressDialog dialog = new ProgressDialog(owner, "Exporting to " + file.getName());
+		dialog.setOnCancel(exporter::cancel);
+		dialog.show();
+		// progress comes from the export thread
+		sellerService.exportAsync(exporter, file.toPath(), format, gzip, criteria,
+				(written, total) -> Utils.fxThread().execute(() -> dialog
+						.update(total == 0 ? 0 : (double) written / total, written + " of " + total + " sellers")))
+				.whenCompleteAsync((rows, error) -> {
+					if (error == null) {
+						dialog.finish(rows + " sellers exported to " + file.getName());
+					} else if (Utils.unwrap(error) instanceof CancellationException) {
+						dialog.finish("Export cancelled");
+					} else {
+						dialog.close();
+						Alerts.showAlert("Error exporting sellers", null, Utils.unwrap(error).getMessage(),
+								AlertType.ERROR);
+					}
+				}, Utils.fxThread());
+	}
+
+	@FXML
+	public void onBtCancelAction(ActionEvent event) {
+		Utils.currentStage(event).close();
+	}
+
+	@Override
+	public void initialize(URL location, ResourceBundle resources) {
+		// null stands for every department
+		Utils.formatComboBox(comboBoxDepartment, dep -> dep == null ? "All departments" : dep.getName());
+	}
+
+	// Loads the departments each time the form is opened
+	public void loadFormData() {
+		if (departmentService == null) {
+			throw new IllegalStateException("Department Service estava nulo");
+		}
+		btExport.setDisable(true);
+		departmentService.findAllAsync().whenCompleteAsync((list, error) -> {
+			btExport.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error loading form", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			List<Department> items = new ArrayList<>(list.size() + 1);
+			items.add(null);
+			items.addAll(list);
+			comboBoxDepartment.setItems(FXCollections.observableArrayList(items));
+			comboBoxDepartment.getSelectionModel().selectFirst();
+		}, Utils.fxThread());
+	}
+}
@@ -4,19 +4,21 @@ import java.net.URL;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.sun.scenario.effect.LinearConvolveCoreEffect;
 
-import db.DbException;
+import gui.listener.DataChangeEvent;
 import gui.listener.DataChangeListener;
+import gui.listener.DataChangeNotifier;
 import gui.util.Alerts;
+import gui.util.CellFormat;
 import gui.util.Constraints;
 import gui.util.Utils;
 import javafx.beans.Observable;
@@ -33,20 +35,24 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Department;
 import model.entities.Seller;
 import model.exception.ValidationException;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.SellerValidator;
 
 public class SellerFormController implements Initializable {
 
 	private Seller department;
+	// bumped each time the form is bound to an entity, async results for an older binding are dropped
+	private int bindGeneration;
 	private SellerService depService;
 	private DepartmentService departmentService;
 
-	private List<DataChangeListener> dataChangeListener = new ArrayList<>();
+	private DataChangeNotifier dataChangeNotifier = new DataChangeNotifier();
 
 	@FXML
 	private TextField txtId;
@@ -77,6 +83,7 @@ public class SellerFormController implements Initializable {
 
 	public void setDeparment(Seller department) {
 		this.department = department;
+		bindGeneration++;
 	}
 
 	public void setServices(SellerService service, DepartmentService departmentService) {
@@ -85,7 +92,7 @@ public class SellerFormController implements Initializable {
 	}
 
 	public void subScribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListener.add(listener);
+		dataChangeNotifier.subscribe(listener);
 	}
 
 	@FXML
@@ -99,61 +106,52 @@ public class SellerFormController implements Initializable {
 
 		try {
 			department = getFormData();
-			depService.saveOrUpdate(department);
-			notifyDataChangeListener();
-			Utils.currentStage(event).close();
+			Seller saving = department;
+			boolean inserting = saving.getId() == null;
+			int generation = bindGeneration;
+			Stage stage = Utils.currentStage(event);
+			btSave.setDisable(true);
+			depService.saveOrUpdateAsync(saving).whenCompleteAsync((v, error) -> {
+				// the dialog was closed and opened for another row meanwhile: leave that one alone
+				boolean current = generation == bindGeneration;
+				if (current) {
+					btSave.setDisable(false);
+				}
+				if (error != null) {
+					Alerts.showAlert("Error saving object", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+					return;
+				}
+				// the save went through either way, the lists still need to know
+				notifyDataChangeListener(inserting ? DataChangeEvent.inserted(saving) : DataChangeEvent.updated(saving));
+				if (current) {
+					stage.close();
+				}
+			}, Utils.fxThread());
 
 		} catch (ValidationException e) {
 			setErrorMessage(e.getErros());
-
-		} catch (DbException e) {
-			Alerts.showAlert("Error saving object", null, e.getMessage(), AlertType.ERROR);
 		}
 	}
 
-	private void notifyDataChangeListener() {
-
-		for (DataChangeListener listener : dataChangeListener) {
-			listener.onDataChanged();
-		}
-
+	private void notifyDataChangeListener(DataChangeEvent<Seller> event) {
+		dataChangeNotifier.fire(event);
 	}
 
 	private Seller getFormData() {
 		Seller depart = new Seller();
 
-		ValidationException exception = new ValidationException("Erro de validao");
-
 		depart.setId(Utils.tryParseToInt(txtId.getText()));
-
-		if (txtName.getText() == null || txtName.getText().trim().equals("")) {
-			exception.addErro("name", "Campo nome est vzio");
-		}
 		depart.setName(txtName.getText());
-
-		if (txtEmail.getText() == null || txtEmail.getText().trim().equals("")) {
-			exception.addErro("email", "Campo e-mail est vzio");
-		}
 		depart.setEmail(txtEmail.getText());
-
-		if (dpBirthDate.getValue() == null) {
-			exception.addErro("birthDate", "Campo birth date est vzio");
-
-		} else {
+		if (dpBirthDate.getValue() != null) {
 			Instant instant = Instant.from(dpBirthDate.getValue().atStartOfDay(ZoneId.systemDefault()));
 			depart.setBirthDate(Date.from(instant));
 		}
-
-		if (txtBaseSalary.getText() == null || txtBaseSalary.getText().trim().equals("")) {
-			exception.addErro("baseSalary", "Campo Base Salary est vzio");
-		}
 		depart.setBaseSalary(Utils.tryParseToDouble(txtBaseSalary.getText()));
-
 		depart.setDepartment(comboBoxDepartment.getValue());
-		
-		if (exception.getErros().size() > 0) {
-			throw exception;
-		}
+
+		// same rules as the CSV import
+		SellerValidator.validate(depart);
 
 		return depart;
 	}
@@ -170,9 +168,9 @@ public class SellerFormController implements Initializable {
 
 	private void initializeNodes() {
 		Constraints.setTextFieldInteger(txtId);
-		Constraints.setTextFieldMaxLength(txtName, 70);
+		Constraints.setTextFieldMaxLength(txtName, SellerValidator.NAME_MAX_LENGTH);
 		Constraints.setTextFieldDouble(txtBaseSalary);
-		Constraints.setTextFieldMaxLength(txtEmail, 60);
+		Constraints.setTextFieldMaxLength(txtEmail, SellerValidator.EMAIL_MAX_LENGTH);
 		Utils.formatDatePicker(dpBirthDate, "dd/MM/yyyy");
 
 		initializeComboBoxDepartment();
@@ -185,11 +183,14 @@ public class SellerFormController implements Initializable {
 		txtId.setText(String.valueOf(department.getId()));
 		txtName.setText(department.getName());
 		txtEmail.setText(department.getEmail());
-		Locale.setDefault(Locale.US);
-		txtBaseSalary.setText(String.format("%.2f", department.getBaseSalary()));
+		txtBaseSalary.setText(CellFormat.decimal(2, Utils.DISPLAY_LOCALE).format(department.getBaseSalary()));
 		if (department.getBirthDate() != null) {
 			dpBirthDate.setValue(LocalDate.ofInstant(department.getBirthDate().toInstant(), ZoneId.systemDefault()));
+		} else {
+			dpBirthDate.setValue(null);
 		}
+		// the form is reused, clear the errors of the previous use
+		setErrorMessage(Collections.emptyMap());
 
 		if (department.getDepartment() == null) {
 			comboBoxDepartment.getSelectionModel().selectFirst();
@@ -199,13 +200,47 @@ public class SellerFormController implements Initializable {
 		}
 	}
 
-	public void loadAssociatedObjects() {
+	// Loads the seller record and the department list in parallel, then fills the form on the FX thread
+	public void loadFormData() {
+		if (department == null) {
+			throw new IllegalStateException("Entity was null");
+		}
 		if (departmentService == null) {
 			throw new IllegalStateException("Department Service estava nulo");
 		}
-		List<Department> list = departmentService.findAll();
-		observableList = FXCollections.observableArrayList(list);
-		comboBoxDepartment.setItems(observableList);
+
+		CompletableFuture<Seller> sellerFuture = department.getId() == null
+				? CompletableFuture.completedFuture(department)
+				: depService.findByIdAsync(department.getId());
+		CompletableFuture<List<Department>> departmentsFuture = departmentService.findAllAsync();
+
+		int generation = bindGeneration;
+		setLoading(true);
+		CompletableFuture.allOf(sellerFuture, departmentsFuture).whenCompleteAsync((v, error) -> {
+			// the form was closed and opened for another seller before this load finished
+			if (generation != bindGeneration) {
+				return;
+			}
+			setLoading(false);
+			if (error != null) {
+				Alerts.showAlert("Error loading form", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			// the row may have been deleted meanwhile, then keep the copy we already have
+			Seller seller = sellerFuture.join();
+			if (seller != null) {
+				department = seller;
+			}
+			observableList = FXCollections.observableArrayList(departmentsFuture.join());
+			comboBoxDepartment.setItems(observableList);
+			updateFormData();
+		}, Utils.fxThread());
+	}
+
+	private void setLoading(boolean loading) {
+		btSave.setDisable(loading);
+		comboBoxDepartment.setDisable(loading);
+		comboBoxDepartment.setPromptText(loading ? "Loading..." : null);
 	}
 
 	private void setErrorMessage(Map<String, String> errors) {
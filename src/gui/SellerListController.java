@@ -1,42 +1,65 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import application.Main;
-import db.DbIntegrityException;
+import gui.listener.DataChangeEvent;
 import gui.listener.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.DialogManager;
+import gui.util.PrefixIndex;
+import gui.util.ProgressDialog;
+import gui.util.TablePager;
 import gui.util.Utils;
+import javafx.animation.PauseTransition;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
-import javafx.stage.Modality;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.SellerCriteria;
+import model.dao.SellerSort;
 import model.entities.Seller;
 import model.services.DepartmentService;
+import model.services.ImportReport;
+import model.services.SellerImporter;
 import model.services.SellerService;
 
 public class SellerListController implements Initializable, DataChangeListener {
 
+	private static final int PAGE_SIZE = 200;
+	private static final int MAX_PAGES = 5;
+	private static final Duration SEARCH_DELAY = Duration.millis(300);
+	// Searches with more matches than this go to the database, and are paged
+	private static final int MAX_LOCAL_ROWS = PAGE_SIZE * MAX_PAGES;
+
 	private SellerService departmentService;
+	private SellerSort sort = SellerSort.byName();
+	private SellerCriteria criteria = SellerCriteria.any();
 
 	@FXML
 	private TableView<Seller> tableViewSeller;
@@ -56,8 +79,31 @@ public class SellerListController implements Initializable, DataChangeListener {
 	private TableColumn<Seller, Seller> tableColumnREMOVE;
 	@FXML
 	private Button btNew;
+	@FXML
+	private Button btDeleteSelected;
+	@FXML
+	private Button btAdjustSalaries;
+	@FXML
+	private Button btImport;
+	@FXML
+	private Button btExport;
+	@FXML
+	private TextField txtSearch;
+
+	private TablePager<Seller> pager;
+	// The form is built on first use and reused afterwards
+	private final DialogManager dialogs = new DialogManager();
+	private final Map<TableColumn<Seller, ?>, SellerSort.Column> sortColumns = new HashMap<>();
+	private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
 
-	private ObservableList<Seller> obsList;
+	// Every seller matching indexedCriteria, when they were few enough to load at once:
+	// searches that narrow that prefix are answered from it while typing
+	private PrefixIndex<Seller> searchIndex;
+	private SellerCriteria indexedCriteria;
+	private CompletableFuture<List<Seller>> indexQuery;
+	// bumped when the index is dropped or a new search starts, so a load started before that is not used
+	private int indexGeneration;
+	private final List<DataChangeEvent<?>> eventsWhileIndexing = new ArrayList<>();
 
 	@FXML
 	public void onButtonNewAction(ActionEvent event) {
@@ -66,6 +112,146 @@ public class SellerListController implements Initializable, DataChangeListener {
 		createDialogForm(depart, "/gui/SellerForm.fxml", parentStage);
 	}
 
+	@FXML
+	public void onButtonDeleteSelectedAction(ActionEvent event) {
+		List<Seller> selected = new ArrayList<>(tableViewSeller.getSelectionModel().getSelectedItems());
+		if (selected.isEmpty()) {
+			return;
+		}
+		Optional<ButtonType> result = Alerts.showConfirmation("Confirmation",
+				"Delete the " + selected.size() + " selected sellers?");
+		if (result.get() != ButtonType.OK) {
+			return;
+		}
+		if (departmentService == null) {
+			throw new IllegalStateException("Service was null");
+		}
+		departmentService.removeAllAsync(selected).whenCompleteAsync((deleteResult, error) -> {
+			if (error != null) {
+				Alerts.showAlert("Error remove objects", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			Map<Integer, Seller> byId = new HashMap<>();
+			for (Seller obj : selected) {
+				byId.put(obj.getId(), obj);
+			}
+			List<DataChangeEvent<?>> events = new ArrayList<>();
+			for (Integer id : deleteResult.getDeletedIds()) {
+				events.add(DataChangeEvent.deleted(byId.get(id)));
+			}
+			onDataChanged(events);
+			if (deleteResult.hasFailures()) {
+				Alerts.showDeleteFailures("Some sellers were not deleted", deleteResult, id -> byId.get(id).getName());
+			}
+		}, Utils.fxThread());
+	}
+
+	@FXML
+	public void onButtonAdjustSalariesAction(ActionEvent event) {
+		try {
+			DialogManager.Dialog<SalaryAdjustmentFormController> dialog = dialogs.get("/gui/SalaryAdjustmentForm.fxml",
+					"Adjust salaries", Utils.currentStage(event), (SalaryAdjustmentFormController controller) -> {
+						controller.setServices(new SellerService(), new DepartmentService());
+						controller.setAdjustmentListener(this::onSalariesAdjusted);
+					});
+			SalaryAdjustmentFormController controller = dialog.getController();
+			controller.setSearchCriteria(criteria);
+			controller.loadFormData();
+			dialog.showAndWait();
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			Alerts.showAlert("IO Exceptio", "Error loading view", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
+	/*
+	 * The rows are read again rather than adjusted here: the database rounds the
+	 * result to the BaseSalary column type (DECIMAL, money...), which a double
+	 * computed in memory would not match. When sorting by salary the order changes
+	 * too. So the listener is only told how many rows changed.
+	 */
+	private void onSalariesAdjusted(int rowsAffected) {
+		dropSearchIndex();
+		updateTableView();
+		Alerts.showAlert("Salaries adjusted", null, rowsAffected + " sellers updated", AlertType.INFORMATION);
+	}
+
+	@FXML
+	public void onButtonImportAction(ActionEvent event) {
+		if (departmentService == null) {
+			throw new IllegalStateException("Service was null");
+		}
+		Stage parentStage = Utils.currentStage(event);
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Import sellers");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+		File file = chooser.showOpenDialog(parentStage);
+		if (file == null) {
+			return;
+		}
+
+		SellerImporter importer = departmentService.newImporter();
+		ProgressDialog dialog = new ProgressDialog(parentStage, "Importing " + file.getName());
+		dialog.setOnCancel(importer::cancel);
+		dialog.show();
+		btImport.setDisable(true);
+		// reports come from the import threads
+		departmentService.importCsvAsync(importer, file.toPath(), report -> Utils.fxThread().execute(
+				() -> dialog.update(report.getProgress(), report.getImported() + " imported, "
+						+ report.getRejected() + " rejected")))
+				.whenCompleteAsync((report, error) -> {
+					btImport.setDisable(false);
+					if (error != null) {
+						dialog.close();
+						Alerts.showAlert("Error importing sellers", null, Utils.unwrap(error).getMessage(),
+								AlertType.ERROR);
+						return;
+					}
+					dialog.finish(importSummary(report));
+					if (report.getImported() > 0) {
+						dropSearchIndex();
+						updateTableView();
+					}
+				}, Utils.fxThread());
+	}
+
+	@FXML
+	public void onButtonExportAction(ActionEvent event) {
+		try {
+			DialogManager.Dialog<SellerExportFormController> dialog = dialogs.get("/gui/SellerExportForm.fxml",
+					"Export sellers", Utils.currentStage(event), (SellerExportFormController controller) -> {
+						controller.setServices(new SellerService(), new DepartmentService());
+					});
+			dialog.getController().loadFormData();
+			dialog.showAndWait();
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			Alerts.showAlert("IO Exceptio", "Error loading view", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
+	private static String importSummary(ImportReport report) {
+		StringBuilder sb = new StringBuilder();
+		if (report.getFailure() != null) {
+			sb.append("Import stopped: ").append(report.getFailure()).append('\n');
+		} else if (report.isCancelled()) {
+			sb.append("Import cancelled\n");
+		}
+		sb.append(report.getImported()).append(" of ").append(report.getRowsRead()).append(" rows imported, ")
+				.append(report.getRejected()).append(" rejected");
+		// the first ones, the rest can be found by fixing these and importing again
+		int shown = Math.min(20, report.getErrors().size());
+		for (int i = 0; i < shown; i++) {
+			sb.append('\n').append(report.getErrors().get(i));
+		}
+		if (report.getRejected() > shown) {
+			sb.append("\n...");
+		}
+		return sb.toString();
+	}
+
 	@Override
 	public void initialize(URL url, ResourceBundle resources) {
 		initializeNodes();
@@ -87,6 +273,198 @@ public class SellerListController implements Initializable, DataChangeListener {
 		// Faz o tableView acompanhar o tamanho da tela
 		Stage stage = (Stage) Main.getMainScene().getWindow();
 		tableViewSeller.prefHeightProperty().bind(stage.heightProperty());
+
+		// Once, the view and its cells are kept between visits
+		initEditButtons();
+		initRemoveButtons();
+
+		tableViewSeller.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+		btDeleteSelected.disableProperty()
+				.bind(Bindings.isEmpty(tableViewSeller.getSelectionModel().getSelectedItems()));
+
+		// Rows are fetched a page at a time as the table is scrolled
+		pager = new TablePager<>(tableViewSeller, PAGE_SIZE, MAX_PAGES,
+				(after, limit, backward) -> departmentService.searchPageAsync(criteria, after, limit,
+						backward ? sort.reversed() : sort));
+		pager.setErrorHandler(
+				e -> Alerts.showAlert("Error loading sellers", null, e.getMessage(), AlertType.ERROR));
+
+		// Header clicks only record the order: rows are queried again, sorted by the database
+		sortColumns.put(tableColumnId, SellerSort.Column.ID);
+		sortColumns.put(tableColumnName, SellerSort.Column.NAME);
+		sortColumns.put(tableColumnEmail, SellerSort.Column.EMAIL);
+		sortColumns.put(tableColumnBirthDate, SellerSort.Column.BIRTH_DATE);
+		sortColumns.put(tableColumnBaseSalary, SellerSort.Column.BASE_SALARY);
+		tableColumnEDIT.setSortable(false);
+		tableColumnREMOVE.setSortable(false);
+		tableViewSeller.setSortPolicy(table -> {
+			applySortOrder();
+			return true;
+		});
+
+		Label placeholder = new Label();
+		placeholder.textProperty()
+				.bind(Bindings.when(pager.loadingProperty()).then("Loading...").otherwise("No sellers"));
+		tableViewSeller.setPlaceholder(placeholder);
+
+		// Answered from the index while typing when it can, otherwise once typing pauses;
+		// reset() cancels the query of the previous search
+		searchDelay.setOnFinished(event -> search(txtSearch.getText(), false));
+		txtSearch.textProperty().addListener((obs, oldValue, newValue) -> {
+			searchDelay.stop();
+			if (!search(newValue, true)) {
+				searchDelay.playFromStart();
+			}
+		});
+		txtSearch.setOnAction(event -> {
+			searchDelay.stop();
+			search(txtSearch.getText(), false);
+		});
+	}
+
+	/*
+	 * Text with an @ is taken as the start of an email, anything else as the start
+	 * of a name. With localOnly nothing is done, and false returned, if the index
+	 * cannot answer.
+	 */
+	private boolean search(String text, boolean localOnly) {
+		String prefix = text == null ? "" : text.trim();
+		SellerCriteria newCriteria = prefix.contains("@") ? SellerCriteria.any().withEmailPrefix(prefix)
+				: SellerCriteria.any().withNamePrefix(prefix);
+		if (newCriteria.equals(criteria)) {
+			return true;
+		}
+		List<Seller> local = findInIndex(newCriteria);
+		if (local == null && localOnly && !newCriteria.isEmpty()) {
+			return false;
+		}
+		criteria = newCriteria;
+		if (departmentService != null) {
+			if (local != null) {
+				show(local);
+			} else if (newCriteria.isEmpty()) {
+				dropSearchIndex();
+				pager.reset();
+			} else {
+				loadSearchIndex(newCriteria);
+			}
+		}
+		return true;
+	}
+
+	// Multi-column sorts come from shift-clicking headers, in the order they were clicked
+	private void applySortOrder() {
+		List<SellerSort.Key> keys = new ArrayList<>();
+		for (TableColumn<Seller, ?> column : tableViewSeller.getSortOrder()) {
+			SellerSort.Column sortColumn = sortColumns.get(column);
+			if (sortColumn != null) {
+				keys.add(new SellerSort.Key(sortColumn, column.getSortType() == TableColumn.SortType.ASCENDING));
+			}
+		}
+		SellerSort newSort = keys.isEmpty() ? SellerSort.byName() : new SellerSort(keys);
+		if (newSort.equals(sort)) {
+			return;
+		}
+		sort = newSort;
+		if (departmentService != null) {
+			show(findInIndex(criteria));
+		}
+	}
+
+	// Rows found in the index are shown at once, otherwise they are paged from the database
+	private void show(List<Seller> local) {
+		if (local != null) {
+			local.sort(sort.comparator());
+			pager.showAll(local);
+		} else {
+			pager.reset();
+		}
+	}
+
+	/*
+	 * Matching sellers from the index, or null if it cannot answer: it is not
+	 * loaded, or the search does not narrow the prefix it was loaded for (the
+	 * sellers starting with "ab" include every one starting with "abc").
+	 */
+	private List<Seller> findInIndex(SellerCriteria criteria) {
+		if (searchIndex == null || criteria.isEmpty()) {
+			return null;
+		}
+		boolean byEmail = criteria.getEmailPrefix() != null;
+		if (byEmail != (indexedCriteria.getEmailPrefix() != null)) {
+			return null;
+		}
+		String prefix = byEmail ? criteria.getEmailPrefix() : criteria.getNamePrefix();
+		String indexed = byEmail ? indexedCriteria.getEmailPrefix() : indexedCriteria.getNamePrefix();
+		if (!prefix.regionMatches(true, 0, indexed, 0, indexed.length())) {
+			return null;
+		}
+		List<Seller> matches = searchIndex.find(prefix, MAX_LOCAL_ROWS);
+		return matches.size() > MAX_LOCAL_ROWS ? null : matches;
+	}
+
+	/*
+	 * Asks the database for at most MAX_LOCAL_ROWS + 1 matches. When they all
+	 * fit, they are shown at once and kept as the index for the next keystrokes;
+	 * otherwise they are shown as the first rows of the search, and the rest is
+	 * paged like any other. Changes saved meanwhile are applied once the rows are in.
+	 */
+	private void loadSearchIndex(SellerCriteria loading) {
+		dropSearchIndex();
+		int generation = indexGeneration;
+		SellerSort loadingSort = sort;
+		indexQuery = departmentService.searchPageAsync(loading, null, MAX_LOCAL_ROWS + 1, loadingSort);
+		indexQuery.whenCompleteAsync((list, error) -> {
+			if (generation != indexGeneration) {
+				return;
+			}
+			indexQuery = null;
+			if (error != null || list.size() > MAX_LOCAL_ROWS) {
+				if (error != null) {
+					pager.reset();
+				} else if (loadingSort.equals(sort)) {
+					// the same rows the pager would ask for first: no second query
+					pager.showFirst(list.subList(0, MAX_LOCAL_ROWS));
+					updatePager(eventsWhileIndexing);
+				}
+				// else the sort changed meanwhile, and applySortOrder already reloaded the pager
+				eventsWhileIndexing.clear();
+				return;
+			}
+			searchIndex = new PrefixIndex<>(loading.getEmailPrefix() != null ? Seller::getEmail : Seller::getName);
+			searchIndex.addAll(list);
+			indexedCriteria = loading;
+			updateSearchIndex(eventsWhileIndexing);
+			eventsWhileIndexing.clear();
+			show(findInIndex(criteria));
+		}, Utils.fxThread());
+	}
+
+	// After a bulk change the index is out of date; the next search queries the database again
+	private void dropSearchIndex() {
+		searchIndex = null;
+		indexedCriteria = null;
+		// the rows still loading are for a search nobody will see
+		if (indexQuery != null) {
+			indexQuery.cancel(true);
+			indexQuery = null;
+		}
+		indexGeneration++;
+		eventsWhileIndexing.clear();
+	}
+
+	private void updateSearchIndex(List<DataChangeEvent<?>> events) {
+		for (DataChangeEvent<?> event : events) {
+			if (!(event.getEntity() instanceof Seller)) {
+				continue;
+			}
+			Seller obj = (Seller) event.getEntity();
+			if (event.getType() == DataChangeEvent.Type.DELETED || !indexedCriteria.matches(obj)) {
+				searchIndex.remove(obj);
+			} else {
+				searchIndex.update(obj);
+			}
+		}
 	}
 
 	public void updateTableView() {
@@ -94,32 +472,21 @@ public class SellerListController implements Initializable, DataChangeListener {
 			throw new IllegalStateException("Service estava nulo");
 		}
 
-		List<Seller> list = departmentService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		tableViewSeller.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		pager.reset();
 	}
 
 	private void createDialogForm(Seller depart, String absouteName, Stage parentStage) {
 
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absouteName));
-			Pane pane = loader.load();
-			SellerFormController departmentFormController = loader.getController();
+			DialogManager.Dialog<SellerFormController> dialog = dialogs.get(absouteName, "Enter seller data",
+					parentStage, (SellerFormController controller) -> {
+						controller.setServices(new SellerService(), new DepartmentService());
+						controller.subScribeDataChangeListener(this);
+					});
+			SellerFormController departmentFormController = dialog.getController();
 			departmentFormController.setDeparment(depart);
-			departmentFormController.setServices(new SellerService(), new DepartmentService());
-			departmentFormController.loadAssociatedObjects();
-			departmentFormController.subScribeDataChangeListener(this);
-			departmentFormController.updateFormData();
-
-			Stage dialogStage = new Stage();
-			dialogStage.setTitle("Enter department data");
-			dialogStage.setScene(new Scene(pane));
-			dialogStage.setResizable(false);
-			dialogStage.initOwner(parentStage);
-			dialogStage.initModality(Modality.WINDOW_MODAL);//
-			dialogStage.showAndWait();
+			departmentFormController.loadFormData();
+			dialog.showAndWait();
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -132,6 +499,40 @@ public class SellerListController implements Initializable, DataChangeListener {
 		updateTableView();
 	}
 
+	// Patches only the affected rows, no query needed
+	@Override
+	public void onDataChanged(List<DataChangeEvent<?>> events) {
+		if (indexQuery != null) {
+			eventsWhileIndexing.addAll(events);
+		} else if (searchIndex != null) {
+			updateSearchIndex(events);
+		}
+		updatePager(events);
+	}
+
+	private void updatePager(List<DataChangeEvent<?>> events) {
+		for (DataChangeEvent<?> event : events) {
+			if (!(event.getEntity() instanceof Seller)) {
+				continue;
+			}
+			Seller obj = (Seller) event.getEntity();
+			switch (event.getType()) {
+			case INSERTED:
+			case UPDATED:
+				// an insert replayed after a search may already be in the rows it returned
+				if (criteria.matches(obj)) {
+					pager.updated(obj, sort.comparator());
+				} else {
+					pager.deleted(obj);
+				}
+				break;
+			case DELETED:
+				pager.deleted(obj);
+				break;
+			}
+		}
+	}
+
 	private void initEditButtons() {
 		tableColumnEDIT.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
 		tableColumnEDIT.setCellFactory(param -> new TableCell<Seller, Seller>() {
@@ -176,13 +577,13 @@ public class SellerListController implements Initializable, DataChangeListener {
 			if (departmentService == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				departmentService.remove(obj);
-				updateTableView();
-			
-			} catch (DbIntegrityException e) {
-				Alerts.showAlert("Error remove object", null, e.getMessage(), AlertType.ERROR);
-			}
+			departmentService.removeAsync(obj).whenCompleteAsync((v, error) -> {
+				if (error != null) {
+					Alerts.showAlert("Error remove object", null, Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				} else {
+					onDataChanged(Collections.singletonList(DataChangeEvent.deleted(obj)));
+				}
+			}, Utils.fxThread());
 		}
 		
 	}
@@ -1,6 +1,14 @@
 package gui.listener;
 
+import java.util.List;
+
 public interface DataChangeListener {
 
 	void onDataChanged();
+
+	// Receives the changes coalesced by DataChangeNotifier. Listeners that can patch
+	// their view override it, the others just reload.
+	default void onDataChanged(List<DataChangeEvent<?>> events) {
+		onDataChanged();
+	}
 }
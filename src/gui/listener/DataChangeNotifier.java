@@ -0,0 +1,70 @@
+package gui.listener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.application.Platform;
+
+/**
+ * Delivers DataChangeEvents to the subscribed listeners. Events fired on the FX
+ * thread are queued and handed over together on the next pulse, with the
+ * events of the same entity merged (inserted + updated is one insert,
+ * inserted + deleted cancels out).
+ */
+public class DataChangeNotifier {
+
+	private final List<DataChangeListener> listeners = new ArrayList<>();
+	// keyed by the entity itself, entities are equal when their ids are
+	private final Map<Object, DataChangeEvent<?>> pending = new LinkedHashMap<>();
+	private boolean flushScheduled;
+
+	public void subscribe(DataChangeListener listener) {
+		if (!listeners.contains(listener)) {
+			listeners.add(listener);
+		}
+	}
+
+	public void fire(DataChangeEvent<?> event) {
+		Object key = event.getEntity();
+		DataChangeEvent<?> previous = pending.get(key);
+		if (previous == null) {
+			pending.put(key, event);
+		} else {
+			DataChangeEvent<?> merged = merge(previous, event);
+			if (merged == null) {
+				pending.remove(key);
+			} else {
+				pending.put(key, merged);
+			}
+		}
+
+		if (!flushScheduled) {
+			flushScheduled = true;
+			Platform.runLater(this::flush);
+		}
+	}
+
+	private void flush() {
+		flushScheduled = false;
+		if (pending.isEmpty()) {
+			return;
+		}
+		List<DataChangeEvent<?>> events = new ArrayList<>(pending.values());
+		pending.clear();
+		for (DataChangeListener listener : listeners) {
+			listener.onDataChanged(events);
+		}
+	}
+
+	private static DataChangeEvent<?> merge(DataChangeEvent<?> previous, DataChangeEvent<?> next) {
+		if (previous.getType() == DataChangeEvent.Type.INSERTED) {
+			if (next.getType() == DataChangeEvent.Type.DELETED) {
+				return null;
+			}
+			return DataChangeEvent.inserted(next.getEntity());
+		}
+		return next;
+	}
+}
@@ -1,6 +1,11 @@
 package gui.util;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+
+import db.DbIntegrityException;
+import db.DeleteResult;
 
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
@@ -23,4 +28,19 @@ public class Alerts {
 		alert.setContentText(content);
 		return alert.showAndWait();
 	}
+
+	// One line per row that could not be deleted, named by the function given
+	public static void showDeleteFailures(String title, DeleteResult result, Function<Integer, String> names) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<Integer, DbIntegrityException> entry : result.getFailures().entrySet()) {
+			sb.append(names.apply(entry.getKey())).append(": ").append(entry.getValue().getMessage()).append('\n');
+		}
+		Alert alert = new Alert(AlertType.WARNING);
+		alert.setTitle(title);
+		alert.setHeaderText(result.getDeletedIds().size() + " deleted, " + result.getFailures().size()
+				+ " could not be deleted");
+		alert.setContentText(sb.toString());
+		alert.setResizable(true);
+		alert.show();
+	}
 }
\ No newline at end of file
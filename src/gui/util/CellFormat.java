@@ -0,0 +1,125 @@
+package gui.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Formats values for display with an explicit locale, and remembers the text
+ * produced for each value. Table cells are updated over and over while the
+ * user scrolls, and the same salary or date comes back many times: after the
+ * first time the text is a map lookup, with no formatter call and no new object.
+ *
+ * Instances are shared (one per format and locale, see {@link #decimal} and
+ * {@link #date}) and thread-safe. The MAX_ENTRIES texts used most recently are
+ * kept. Decimals are remembered by value, dates by day: every time of the same
+ * day is one entry, looked up through a reused key so a hit allocates nothing.
+ */
+public class CellFormat<V> {
+
+	private static final int MAX_ENTRIES = 4096;
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+	private static final Map<String, CellFormat<?>> shared = new ConcurrentHashMap<>();
+
+	private final Function<V, String> formatter;
+	// null: the value itself is the key
+	private final ToLongFunction<V> day;
+	private final DayKey probe = new DayKey(0);
+	// access order: the least recently used text is the one dropped
+	private final Map<Object, String> texts = new LinkedHashMap<Object, String>(MAX_ENTRIES * 4 / 3 + 1, 0.75f,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private CellFormat(Function<V, String> formatter, ToLongFunction<V> day) {
+		this.formatter = formatter;
+		this.day = day;
+	}
+
+	// Fixed number of decimal places, no grouping: 1234.5 -> "1234.50". Rounds like String.format("%.2f")
+	@SuppressWarnings("unchecked")
+	public static CellFormat<Number> decimal(int decimalPlaces, Locale locale) {
+		return (CellFormat<Number>) shared.computeIfAbsent("decimal:" + decimalPlaces + ":" + locale.toLanguageTag(),
+				key -> {
+					char separator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+					return new CellFormat<Number>(value -> {
+						if (value instanceof Double && !Double.isFinite(value.doubleValue())) {
+							return value.toString();
+						}
+						String text = new BigDecimal(value.toString()).setScale(decimalPlaces, RoundingMode.HALF_UP)
+								.toPlainString();
+						return separator == '.' ? text : text.replace('.', separator);
+					}, null);
+				});
+	}
+
+	// Date pattern as accepted by DateTimeFormatter, day fields only, in the system time zone
+	@SuppressWarnings("unchecked")
+	public static CellFormat<Date> date(String pattern, Locale locale) {
+		return (CellFormat<Date>) shared.computeIfAbsent("date:" + pattern + ":" + locale.toLanguageTag(), key -> {
+			TimeZone zone = TimeZone.getDefault();
+			DateTimeFormatter format = DateTimeFormatter.ofPattern(pattern, locale);
+			// getTime() instead of toInstant(), java.sql.Date does not support the latter
+			ToLongFunction<Date> epochDay = value -> {
+				long millis = value.getTime();
+				return Math.floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+			};
+			return new CellFormat<Date>(value -> format.format(LocalDate.ofEpochDay(epochDay.applyAsLong(value))),
+					epochDay);
+		});
+	}
+
+	// Returns "" for null
+	public String format(V value) {
+		if (value == null) {
+			return "";
+		}
+		synchronized (texts) {
+			Object key = value;
+			if (day != null) {
+				probe.day = day.applyAsLong(value);
+				key = probe;
+			}
+			String text = texts.get(key);
+			if (text == null) {
+				text = formatter.apply(value);
+				texts.put(day != null ? new DayKey(probe.day) : value, text);
+			}
+			return text;
+		}
+	}
+
+	private static final class DayKey {
+
+		private long day;
+
+		private DayKey(long day) {
+			this.day = day;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(day);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof DayKey && ((DayKey) obj).day == day;
+		}
+	}
+}
@@ -27,4 +27,13 @@ public class Constraints {
 			}
 		});
 	}
+
+	// Like setTextFieldDouble, also accepting a leading minus sign
+	public static void setTextFieldSignedDouble(TextField txt) {
+		txt.textProperty().addListener((obs, oldValue, newValue) -> {
+			if (newValue != null && !newValue.matches("-?\\d*([\\.]\\d*)?")) {
+				txt.setText(oldValue);
+			}
+		});
+	}
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package gui.util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Builds each modal form once, stage and controller included, and hands the
+ * same ones back every time the form is opened again. The caller rebinds the
+ * entity and resets the form before showing it.
+ *
+ * Used on the JavaFX application thread only.
+ */
+public class DialogManager {
+
+	public static class Dialog<T> {
+
+		private final Stage stage;
+		private final T controller;
+
+		private Dialog(Stage stage, T controller) {
+			this.stage = stage;
+			this.controller = controller;
+		}
+
+		public Stage getStage() {
+			return stage;
+		}
+
+		public T getController() {
+			return controller;
+		}
+
+		public void showAndWait() {
+			stage.showAndWait();
+		}
+	}
+
+	private final Map<String, Dialog<?>> dialogs = new HashMap<>();
+
+	/**
+	 * The dialog for the given FXML, built the first time with the owner and
+	 * title given then. setup runs once, on the new controller, for what
+	 * does not change between uses (services, listeners).
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Dialog<T> get(String absoluteName, String title, Window owner, Consumer<T> setup) throws IOException {
+		Dialog<?> dialog = dialogs.get(absoluteName);
+		if (dialog == null) {
+			FXMLLoader loader = new FXMLLoader(DialogManager.class.getResource(absoluteName));
+			Parent root = loader.load();
+			T controller = loader.getController();
+			setup.accept(controller);
+
+			Stage dialogStage = new Stage();
+			dialogStage.setTitle(title);
+			dialogStage.setScene(new Scene(root));
+			dialogStage.setResizable(false);
+			dialogStage.initOwner(owner);
+			dialogStage.initModality(Modality.WINDOW_MODAL);
+			dialog = new Dialog<>(dialogStage, controller);
+			dialogs.put(absoluteName, dialog);
+		}
+		return (Dialog<T>) dialog;
+	}
+}
@@ -0,0 +1,104 @@
+package gui.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * In-memory index answering "which objects have a key starting with this
+ * text" without scanning them all: keys are kept sorted (lower case), so the
+ * matches of a prefix are one contiguous range found in O(log n).
+ *
+ * Objects are identified by equals()/hashCode(), and the key indexed for each
+ * is remembered, so update() works even when the object was changed in place.
+ * Not thread-safe: build it on one thread and then use it on the FX thread only.
+ */
+public class PrefixIndex<T> {
+
+	private final Function<T, String> key;
+	private final TreeMap<String, Set<T>> entries = new TreeMap<>();
+	private final Map<T, String> indexedKeys = new HashMap<>();
+
+	public PrefixIndex(Function<T, String> key) {
+		this.key = key;
+	}
+
+	public void add(T obj) {
+		String value = normalize(key.apply(obj));
+		String previous = indexedKeys.put(obj, value);
+		if (previous != null) {
+			removeEntry(previous, obj);
+		}
+		if (value != null) {
+			entries.computeIfAbsent(value, k -> new LinkedHashSet<>(2)).add(obj);
+		}
+	}
+
+	public void update(T obj) {
+		add(obj);
+	}
+
+	public void remove(T obj) {
+		String previous = indexedKeys.remove(obj);
+		if (previous != null) {
+			removeEntry(previous, obj);
+		}
+	}
+
+	public void addAll(Iterable<? extends T> list) {
+		for (T obj : list) {
+			add(obj);
+		}
+	}
+
+	public void clear() {
+		entries.clear();
+		indexedKeys.clear();
+	}
+
+	public int size() {
+		return indexedKeys.size();
+	}
+
+	/**
+	 * Objects whose key starts with the prefix, ignoring case, in key order.
+	 * Stops after limit + 1 matches, so the caller can tell the result was cut.
+	 */
+	public List<T> find(String prefix, int limit) {
+		List<T> result = new ArrayList<>();
+		String from = normalize(prefix);
+		if (from == null) {
+			return result;
+		}
+		// every key starting with "from" sorts before from + '\uffff'
+		for (Set<T> matches : entries.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+			for (T obj : matches) {
+				result.add(obj);
+				if (result.size() > limit) {
+					return result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private void removeEntry(String value, T obj) {
+		Set<T> set = entries.get(value);
+		if (set != null) {
+			set.remove(obj);
+			if (set.isEmpty()) {
+				entries.remove(value);
+			}
+		}
+	}
+
+	private static String normalize(String value) {
+		return value == null ? null : value.toLowerCase(Locale.ROOT);
+	}
+}
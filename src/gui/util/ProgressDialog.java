@@ -0,0 +1,78 @@
+package gui.util;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Small window showing the progress of a long task, with a button to cancel
+ * it. The task keeps running if the window is closed; cancelling is up to the
+ * onCancel action. Used on the JavaFX application thread only.
+ */
+public class ProgressDialog {
+
+	private final Stage stage = new Stage();
+	private final Label message = new Label();
+	private final ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+	private final Button button = new Button("Cancel");
+	private Runnable onCancel;
+	private boolean finished;
+
+	public ProgressDialog(Window owner, String title) {
+		progressBar.setPrefWidth(360.0);
+		button.setOnAction(event -> {
+			if (finished) {
+				stage.close();
+			} else if (onCancel != null) {
+				button.setDisable(true);
+				message.setText("Cancelling...");
+				onCancel.run();
+			}
+		});
+
+		VBox root = new VBox(10.0, message, progressBar, button);
+		root.setPadding(new Insets(20.0));
+		stage.setTitle(title);
+		stage.setScene(new Scene(root));
+		stage.setResizable(false);
+		stage.initOwner(owner);
+		stage.initModality(Modality.WINDOW_MODAL);
+	}
+
+	public void setOnCancel(Runnable onCancel) {
+		this.onCancel = onCancel;
+	}
+
+	public void show() {
+		stage.show();
+	}
+
+	// progress between 0 and 1, or ProgressBar.INDETERMINATE_PROGRESS
+	public void update(double progress, String text) {
+		if (finished) {
+			return;
+		}
+		progressBar.setProgress(progress);
+		message.setText(text);
+	}
+
+	// Leaves the window open with the final message; the button now closes it
+	public void finish(String text) {
+		finished = true;
+		progressBar.setProgress(1.0);
+		message.setText(text);
+		button.setText("Close");
+		button.setDisable(false);
+		stage.sizeToScene();
+	}
+
+	public void close() {
+		stage.close();
+	}
+}
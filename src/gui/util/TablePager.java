@@ -0,0 +1,228 @@
+package gui.util;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+/**
+ * Feeds a TableView page by page as the user scrolls, using keyset pages:
+ * the next page is loaded after the last row shown and the previous one
+ * before the first row shown (the loader is asked for the reverse order).
+ * Pages are loaded asynchronously and applied on the JavaFX application thread.
+ *
+ * At most maxPages pages of rows are kept in the table: rows that scroll out
+ * of that window at one end are dropped and loaded again when the user scrolls
+ * back, so memory depends on the window and not on the table size.
+ */
+public class TablePager<T> {
+
+	@FunctionalInterface
+	public interface PageLoader<T> {
+		// backward: the rows before "after", nearest first
+		CompletableFuture<List<T>> load(T after, int limit, boolean backward);
+	}
+
+	private final TableView<T> table;
+	private final int pageSize;
+	private final int maxRows;
+	private final PageLoader<T> loader;
+	private final ObservableList<T> items = FXCollections.observableArrayList();
+
+	private boolean startReached;
+	private boolean endReached;
+	// bumped by reset(), showAll() and showFirst(), so pages requested before them are ignored when they arrive
+	private int generation;
+	private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+	private Consumer<Throwable> errorHandler = e -> e.printStackTrace();
+	private CompletableFuture<List<T>> pending;
+
+	public TablePager(TableView<T> table, int pageSize, int maxPages, PageLoader<T> loader) {
+		this.table = table;
+		this.pageSize = pageSize;
+		this.maxRows = Math.max(2, maxPages) * pageSize;
+		this.loader = loader;
+		table.setItems(items);
+		table.skinProperty().addListener((obs, oldSkin, newSkin) -> attachScrollBar());
+		if (table.getSkin() != null) {
+			attachScrollBar();
+		}
+	}
+
+	public ObservableList<T> getItems() {
+		return items;
+	}
+
+	public ReadOnlyBooleanProperty loadingProperty() {
+		return loading.getReadOnlyProperty();
+	}
+
+	public void setErrorHandler(Consumer<Throwable> errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	// Starts over from the first page, used after the data or the order has changed
+	public void reset() {
+		discardPending();
+		items.clear();
+		startReached = true;
+		endReached = false;
+		table.scrollTo(0);
+		loadNext();
+	}
+
+	// Shows rows that are already at hand, sorted, as the complete result: nothing more is loaded
+	public void showAll(List<T> rows) {
+		discardPending();
+		items.setAll(rows);
+		startReached = true;
+		endReached = true;
+		table.scrollTo(0);
+	}
+
+	// Shows the first rows of a longer result already at hand, the following pages are loaded as usual
+	public void showFirst(List<T> rows) {
+		discardPending();
+		items.setAll(rows.size() > maxRows ? rows.subList(0, maxRows) : rows);
+		startReached = true;
+		endReached = false;
+		table.scrollTo(0);
+	}
+
+	public void loadNext() {
+		if (endReached || loading.get()) {
+			return;
+		}
+		T after = items.isEmpty() ? null : items.get(items.size() - 1);
+		request(after, false, page -> {
+			if (page.size() < pageSize) {
+				endReached = true;
+			}
+			items.addAll(page);
+
+			if (items.size() > maxRows) {
+				int firstVisible = firstVisibleIndex();
+				int dropped = items.size() - maxRows;
+				items.remove(0, dropped);
+				startReached = false;
+				table.scrollTo(Math.max(0, firstVisible - dropped));
+			}
+		});
+	}
+
+	public void loadPrevious() {
+		if (startReached || loading.get() || items.isEmpty()) {
+			return;
+		}
+		request(items.get(0), true, page -> {
+			if (page.size() < pageSize) {
+				startReached = true;
+			}
+			Collections.reverse(page);
+			int firstVisible = firstVisibleIndex();
+			items.addAll(0, page);
+
+			if (items.size() > maxRows) {
+				items.remove(maxRows, items.size());
+				endReached = false;
+			}
+			table.scrollTo(firstVisible + page.size());
+		});
+	}
+
+	/*
+	 * The methods below patch the rows already loaded after a change, without
+	 * going back to the database. A row that falls outside the loaded window is
+	 * left for the next page load.
+	 */
+
+	public void inserted(T obj, Comparator<? super T> order) {
+		int pos = Collections.binarySearch(items, obj, order);
+		if (pos < 0) {
+			pos = -pos - 1;
+		}
+		if ((pos == items.size() && !endReached) || (pos == 0 && !startReached)) {
+			return;
+		}
+		items.add(pos, obj);
+	}
+
+	public void updated(T obj, Comparator<? super T> order) {
+		items.remove(obj);
+		inserted(obj, order);
+	}
+
+	public void deleted(T obj) {
+		items.remove(obj);
+	}
+
+	private void discardPending() {
+		generation++;
+		// the page still loading belongs to the old data or order, nobody will use it
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+		loading.set(false);
+	}
+
+	// Loads a page off the FX thread and applies it back on the FX thread
+	private void request(T after, boolean backward, Consumer<List<T>> apply) {
+		int requestGeneration = generation;
+		loading.set(true);
+		CompletableFuture<List<T>> future = loader.load(after, pageSize, backward);
+		pending = future;
+		future.whenCompleteAsync((page, error) -> {
+			if (requestGeneration != generation) {
+				return;
+			}
+			pending = null;
+			loading.set(false);
+			if (error != null) {
+				errorHandler.accept(Utils.unwrap(error));
+			} else {
+				apply.accept(page);
+			}
+		}, Utils.fxThread());
+	}
+
+	private void attachScrollBar() {
+		for (Node node : table.lookupAll(".scroll-bar")) {
+			if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+				ScrollBar bar = (ScrollBar) node;
+				bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+					double range = bar.getMax() - bar.getMin();
+					if (newValue.doubleValue() >= bar.getMax() - range * 0.05) {
+						loadNext();
+					} else if (newValue.doubleValue() <= bar.getMin()) {
+						loadPrevious();
+					}
+				});
+				return;
+			}
+		}
+	}
+
+	private int firstVisibleIndex() {
+		Node node = table.lookup(".virtual-flow");
+		if (node instanceof VirtualFlow) {
+			IndexedCell<?> cell = ((VirtualFlow<?>) node).getFirstVisibleCell();
+			if (cell != null) {
+				return cell.getIndex();
+			}
+		}
+		return 0;
+	}
+}
@@ -1,14 +1,20 @@
 package gui.util;
 
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.scene.Node;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.stage.Stage;
@@ -16,10 +22,26 @@ import javafx.util.StringConverter;
 
 public class Utils {
 
+	// Locale of the numbers and dates shown in tables and forms ("1234.50", "dd/MM/yyyy")
+	public static final Locale DISPLAY_LOCALE = Locale.US;
+
 	public static Stage currentStage(ActionEvent event) {
 		return (Stage) ((Node) event.getSource()).getScene().getWindow();
 	}
 
+	// Executor that runs tasks on the JavaFX application thread, used to apply async results
+	public static Executor fxThread() {
+		return Platform::runLater;
+	}
+
+	// Strips the CompletionException/ExecutionException wrappers added by CompletableFuture
+	public static Throwable unwrap(Throwable e) {
+		while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e;
+	}
+
 	public static Integer tryParseToInt(String str) {
 		try {
 			return Integer.parseInt(str);
@@ -39,35 +61,33 @@ public class Utils {
 	}
 
 	public static <T> void formatTableColumnDate(TableColumn<T, Date> tableColumn, String format) {
-		tableColumn.setCellFactory(column -> {
-			TableCell<T, Date> cell = new TableCell<T, Date>() {
-				private SimpleDateFormat sdf = new SimpleDateFormat(format);
+		formatTableColumnDate(tableColumn, format, DISPLAY_LOCALE);
+	}
 
-				@Override
-				protected void updateItem(Date item, boolean empty) {
-					super.updateItem(item, empty);
-					if (empty) {
-						setText(null);
-					} else {
-						setText(sdf.format(item));
-					}
-				}
-			};
-			return cell;
-		});
+	public static <T> void formatTableColumnDate(TableColumn<T, Date> tableColumn, String format, Locale locale) {
+		formatTableColumn(tableColumn, CellFormat.date(format, locale));
 	}
 
 	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces) {
+		formatTableColumnDouble(tableColumn, decimalPlaces, DISPLAY_LOCALE);
+	}
+
+	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces,
+			Locale locale) {
+		formatTableColumn(tableColumn, CellFormat.decimal(decimalPlaces, locale));
+	}
+
+	// The cells share the format, so a value already shown by any cell is not formatted again
+	public static <T, V> void formatTableColumn(TableColumn<T, V> tableColumn, CellFormat<? super V> format) {
 		tableColumn.setCellFactory(column -> {
-			TableCell<T, Double> cell = new TableCell<T, Double>() {
+			TableCell<T, V> cell = new TableCell<T, V>() {
 				@Override
-				protected void updateItem(Double item, boolean empty) {
+				protected void updateItem(V item, boolean empty) {
 					super.updateItem(item, empty);
-					if (empty) {
+					if (empty || item == null) {
 						setText(null);
 					} else {
-						Locale.setDefault(Locale.US);
-						setText(String.format("%." + decimalPlaces + "f", item));
+						setText(format.format(item));
 					}
 				}
 			};
@@ -75,6 +95,25 @@ public class Utils {
 		});
 	}
 
+	// Items shown as text, null included (a null item can stand for "all")
+	public static <T> void formatComboBox(ComboBox<T> comboBox, Function<T, String> text) {
+		comboBox.setCellFactory(lv -> new ListCell<T>() {
+			@Override
+			protected void updateItem(T item, boolean empty) {
+				super.updateItem(item, empty);
+				setText(empty ? "" : text.apply(item));
+			}
+		});
+		// the button cell is "empty" when the value is null
+		comboBox.setButtonCell(new ListCell<T>() {
+			@Override
+			protected void updateItem(T item, boolean empty) {
+				super.updateItem(item, empty);
+				setText(text.apply(item));
+			}
+		});
+	}
+
 	public static void formatDatePicker(DatePicker datePicker, String format) {
 		datePicker.setConverter(new StringConverter<LocalDate>() {
 			DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(format);
@@ -0,0 +1,84 @@
+package gui.util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+
+/**
+ * Keeps the views loaded from FXML, with their controllers, so each file is
+ * parsed once: showing a view again reuses the same nodes and controller.
+ *
+ * Used on the JavaFX application thread only. {@link #preload} loads views
+ * ahead of time one per pulse, so the UI keeps responding in between.
+ */
+public class ViewCache {
+
+	public static class View<T> {
+
+		private final List<Node> nodes;
+		private final T controller;
+
+		private View(List<Node> nodes, T controller) {
+			this.nodes = nodes;
+			this.controller = controller;
+		}
+
+		// The children of the FXML root, to be placed in another container
+		public List<Node> getNodes() {
+			return nodes;
+		}
+
+		public T getController() {
+			return controller;
+		}
+	}
+
+	private final Map<String, View<?>> views = new HashMap<>();
+
+	@SuppressWarnings("unchecked")
+	public <T> View<T> get(String absoluteName) throws IOException {
+		View<?> view = views.get(absoluteName);
+		if (view == null) {
+			FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource(absoluteName));
+			Pane root = loader.load();
+			view = new View<>(Collections.unmodifiableList(new ArrayList<>(root.getChildren())), loader.getController());
+			views.put(absoluteName, view);
+		}
+		return (View<T>) view;
+	}
+
+	public boolean contains(String absoluteName) {
+		return views.containsKey(absoluteName);
+	}
+
+	public void preload(String... absoluteNames) {
+		preloadNext(new ArrayDeque<>(Arrays.asList(absoluteNames)));
+	}
+
+	private void preloadNext(Deque<String> pending) {
+		if (pending.isEmpty()) {
+			return;
+		}
+		Platform.runLater(() -> {
+			String name = pending.poll();
+			try {
+				get(name);
+			} catch (IOException | RuntimeException e) {
+				// not fatal, the view is loaded again when it is opened and the error shown then
+				System.err.println("Could not preload " + name + ": " + e.getMessage());
+			}
+			preloadNext(pending);
+		});
+	}
+}
@@ -1,17 +1,78 @@
 package model.dao;
 
+import java.util.concurrent.Executor;
+
 import db.DB;
+import model.dao.cache.CacheConsistency;
+import model.dao.cache.WriteInvalidation;
+import model.dao.impl.CachingDepartmentDao;
 import model.dao.impl.DepartmentDaoJDBC;
 import model.dao.impl.SellerDaoJDBC;
+import model.dao.metrics.DaoMetrics;
 
 public class DaoFactory {
 
-	public static SellerDao createSellerDao() {
-		return new SellerDaoJDBC(DB.getConnection());
+	// Shared by every service instance, so the caches are application wide
+	private static SellerDao sellerDao = null;
+	private static DepartmentDao departmentDao = null;
+	private static volatile SellerDaoJDBC sellerTable = null;
+	private static CachingDepartmentDao departmentCache = null;
+	private static Executor sellerRefreshExecutor = Runnable::run;
 
+	public static synchronized SellerDao createSellerDao() {
+		if (sellerDao == null) {
+			SellerDaoJDBC table = new SellerDaoJDBC(DB.getPool(), batchSize(),
+					CacheConsistency.parse(DB.getProperties().getProperty("cache.seller.consistency")),
+					DB.getIntProperty("cache.seller.maxSize", 10000),
+					DB.getIntProperty("cache.seller.ttlSeconds", 60));
+			table.setRefreshExecutor(sellerRefreshExecutor);
+			sellerTable = table;
+			// the department statistics are computed from the sellers
+			createDepartmentDao();
+			sellerDao = WriteInvalidation.wrap(SellerDao.class, instrument(SellerDao.class, table),
+					departmentCache::invalidateStatistics);
+		}
+		return sellerDao;
 	}
 	
-	public static DepartmentDao createDepartmentDao() {
-		return new DepartmentDaoJDBC(DB.getConnection());
+	public static synchronized DepartmentDao createDepartmentDao() {
+		if (departmentDao == null) {
+			// measured under the cache, so the metrics are database calls only
+			departmentCache = new CachingDepartmentDao(
+					instrument(DepartmentDao.class, new DepartmentDaoJDBC(DB.getPool(), batchSize())),
+					DB.getIntProperty("cache.department.maxSize", 1000),
+					DB.getIntProperty("cache.department.ttlSeconds", 300));
+			// cached sellers hold the department they were read with
+			departmentDao = WriteInvalidation.wrap(DepartmentDao.class, departmentCache, DaoFactory::invalidateSellers);
+		}
+		return departmentDao;
+	}
+
+	// Thread on which cached sellers are updated, see SellerDaoJDBC.setRefreshExecutor
+	public static synchronized void setSellerRefreshExecutor(Executor executor) {
+		sellerRefreshExecutor = executor;
+		if (sellerTable != null) {
+			sellerTable.setRefreshExecutor(executor);
+		}
+	}
+
+	private static void invalidateSellers() {
+		SellerDaoJDBC table = sellerTable;
+		if (table != null) {
+			table.invalidateCache();
+		}
+	}
+
+	// Wraps the DAO with DaoMetrics unless metrics.enabled is false
+	private static <T> T instrument(Class<T> daoInterface, T dao) {
+		if ("false".equalsIgnoreCase(DB.getProperties().getProperty("metrics.enabled", "true").trim())) {
+			return dao;
+		}
+		DaoMetrics.startLogging(DB.getIntProperty("metrics.logIntervalSeconds", 300));
+		return DaoMetrics.instrument(daoInterface, dao);
+	}
+
+	private static int batchSize() {
+		return DB.getIntProperty("batch.size", 500);
 	}
 }
@@ -1,14 +1,28 @@
 package model.dao;
 
+import java.util.Collection;
 import java.util.List;
 
+import db.DeleteResult;
+
 import model.entities.Department;
+import model.entities.DepartmentStatistics;
 
 public interface DepartmentDao {
 
+	@Write
 	void insert(Department obj);
+	@Write
 	void update(Department obj);
+	@Write
+	List<Integer> insertAll(Collection<Department> list);
+	@Write
+	int updateAll(Collection<Department> list);
+	@Write
 	void deleteById(Integer id);
+	@Write
+	DeleteResult deleteByIds(Collection<Integer> ids);
 	Department findById(Integer id);
 	List<Department> findAll();
+	List<DepartmentStatistics> findStatistics();
 }
@@ -0,0 +1,78 @@
+package model.dao;
+
+import java.util.Objects;
+
+/**
+ * Change applied to BaseSalary by a bulk update: a percentage (10 is a 10%
+ * raise, -5 a 5% cut) or a fixed amount added to every salary.
+ *
+ * The new salaries are computed by the database and rounded to the column
+ * type, so rows already in memory have to be read again to show them.
+ */
+public class SalaryAdjustment {
+
+	public enum Kind {
+		PERCENT, AMOUNT
+	}
+
+	private final Kind kind;
+	private final double value;
+
+	private SalaryAdjustment(Kind kind, double value) {
+		if (!Double.isFinite(value)) {
+			throw new IllegalArgumentException("Adjustment must be a number: " + value);
+		}
+		this.kind = kind;
+		this.value = value;
+	}
+
+	public static SalaryAdjustment percent(double percent) {
+		if (percent <= -100) {
+			throw new IllegalArgumentException("A cut of 100% or more leaves no salary: " + percent);
+		}
+		return new SalaryAdjustment(Kind.PERCENT, percent);
+	}
+
+	public static SalaryAdjustment amount(double amount) {
+		return new SalaryAdjustment(Kind.AMOUNT, amount);
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	// Right side of "SET BaseSalary = ...", with one parameter bound to getOperand()
+	public String sqlExpression() {
+		return kind == Kind.PERCENT ? "BaseSalary * ?" : "BaseSalary + ?";
+	}
+
+	public double getOperand() {
+		return kind == Kind.PERCENT ? 1 + value / 100 : value;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(kind, value);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SalaryAdjustment other = (SalaryAdjustment) obj;
+		return kind == other.kind && Double.compare(value, other.value) == 0;
+	}
+
+	@Override
+	public String toString() {
+		return kind == Kind.PERCENT ? value + "%" : "+" + value;
+	}
+}
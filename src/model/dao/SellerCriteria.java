@@ -0,0 +1,171 @@
+package model.dao;
+
+import java.util.Date;
+import java.util.Objects;
+
+import model.entities.Seller;
+
+/**
+ * Filter for seller searches. Every field is optional and the ones that are
+ * set are combined with AND. The SQL built from it only uses predicates an
+ * index can seek on: prefixes (LIKE 'abc%') and ranges, never functions on
+ * the columns.
+ *
+ * Ranges include both ends, except birthDateTo which is exclusive so a whole
+ * day can be selected with [day, day + 1).
+ */
+public class SellerCriteria {
+
+	private String namePrefix;
+	private String emailPrefix;
+	private Integer departmentId;
+	private Double minSalary;
+	private Double maxSalary;
+	private Date birthDateFrom;
+	private Date birthDateTo;
+
+	public SellerCriteria() {
+	}
+
+	public static SellerCriteria any() {
+		return new SellerCriteria();
+	}
+
+	public SellerCriteria withNamePrefix(String namePrefix) {
+		this.namePrefix = blankToNull(namePrefix);
+		return this;
+	}
+
+	public SellerCriteria withEmailPrefix(String emailPrefix) {
+		this.emailPrefix = blankToNull(emailPrefix);
+		return this;
+	}
+
+	public SellerCriteria withDepartmentId(Integer departmentId) {
+		this.departmentId = departmentId;
+		return this;
+	}
+
+	public SellerCriteria withSalaryRange(Double minSalary, Double maxSalary) {
+		this.minSalary = minSalary;
+		this.maxSalary = maxSalary;
+		return this;
+	}
+
+	public SellerCriteria withBirthDateRange(Date from, Date to) {
+		this.birthDateFrom = from;
+		this.birthDateTo = to;
+		return this;
+	}
+
+	public String getNamePrefix() {
+		return namePrefix;
+	}
+
+	public String getEmailPrefix() {
+		return emailPrefix;
+	}
+
+	public Integer getDepartmentId() {
+		return departmentId;
+	}
+
+	public Double getMinSalary() {
+		return minSalary;
+	}
+
+	public Double getMaxSalary() {
+		return maxSalary;
+	}
+
+	public Date getBirthDateFrom() {
+		return birthDateFrom;
+	}
+
+	public Date getBirthDateTo() {
+		return birthDateTo;
+	}
+
+	public boolean isEmpty() {
+		return namePrefix == null && emailPrefix == null && departmentId == null && minSalary == null
+				&& maxSalary == null && birthDateFrom == null && birthDateTo == null;
+	}
+
+	/**
+	 * Same test as the SQL, for objects that changed after the search ran.
+	 * Prefixes are compared ignoring case, like the default SQL Server collation.
+	 */
+	public boolean matches(Seller obj) {
+		if (namePrefix != null && !startsWithIgnoreCase(obj.getName(), namePrefix)) {
+			return false;
+		}
+		if (emailPrefix != null && !startsWithIgnoreCase(obj.getEmail(), emailPrefix)) {
+			return false;
+		}
+		if (departmentId != null
+				&& (obj.getDepartment() == null || !departmentId.equals(obj.getDepartment().getId()))) {
+			return false;
+		}
+		if (minSalary != null && (obj.getBaseSalary() == null || obj.getBaseSalary() < minSalary)) {
+			return false;
+		}
+		if (maxSalary != null && (obj.getBaseSalary() == null || obj.getBaseSalary() > maxSalary)) {
+			return false;
+		}
+		if (birthDateFrom != null && (obj.getBirthDate() == null || obj.getBirthDate().getTime() < birthDateFrom.getTime())) {
+			return false;
+		}
+		if (birthDateTo != null && (obj.getBirthDate() == null || obj.getBirthDate().getTime() >= birthDateTo.getTime())) {
+			return false;
+		}
+		return true;
+	}
+
+	// Escapes the LIKE wildcards of a user supplied prefix, to be used with ESCAPE '\'
+	public static String likePrefix(String prefix) {
+		StringBuilder sb = new StringBuilder(prefix.length() + 1);
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+			if (c == '%' || c == '_' || c == '[' || c == '\\') {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		return sb.append('%').toString();
+	}
+
+	private static boolean startsWithIgnoreCase(String value, String prefix) {
+		return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value.trim();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(namePrefix, emailPrefix, departmentId, minSalary, maxSalary, birthDateFrom, birthDateTo);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SellerCriteria other = (SellerCriteria) obj;
+		return Objects.equals(namePrefix, other.namePrefix) && Objects.equals(emailPrefix, other.emailPrefix)
+				&& Objects.equals(departmentId, other.departmentId) && Objects.equals(minSalary, other.minSalary)
+				&& Objects.equals(maxSalary, other.maxSalary) && Objects.equals(birthDateFrom, other.birthDateFrom)
+				&& Objects.equals(birthDateTo, other.birthDateTo);
+	}
+
+	@Override
+	public String toString() {
+		return "SellerCriteria [namePrefix = " + namePrefix + ", emailPrefix = " + emailPrefix + ", departmentId = "
+				+ departmentId + ", minSalary = " + minSalary + ", maxSalary = " + maxSalary + ", birthDateFrom = "
+				+ birthDateFrom + ", birthDateTo = " + birthDateTo + "]";
+	}
+}
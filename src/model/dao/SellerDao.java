@@ -1,16 +1,37 @@
 package model.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Predicate;
+
+import db.DeleteResult;
 
 import model.entities.Department;
 import model.entities.Seller;
 
 public interface SellerDao {
 
+	@Write
 	void insert(Seller obj);
+	@Write
 	void update(Seller obj);
+	@Write
+	List<Integer> insertAll(Collection<Seller> list);
+	@Write
+	int updateAll(Collection<Seller> list);
+	@Write
+	int adjustSalary(SellerCriteria criteria, SalaryAdjustment adjustment);
+	@Write
 	void deleteById(Integer id);
+	@Write
+	DeleteResult deleteByIds(Collection<Integer> ids);
 	Seller findByid(Integer id);
 	List<Seller> findAll();
+	List<Seller> findPage(Seller after, int limit, SellerSort sort);
 	List<Seller> findByDepartment(Department department);
+	List<Seller> search(SellerCriteria criteria);
+	List<Seller> search(SellerCriteria criteria, Seller after, int limit, SellerSort sort);
+	int count(SellerCriteria criteria);
+	// Hands the rows to action one at a time, as they are read, until it returns false; returns how many it got
+	long forEach(SellerCriteria criteria, SellerSort sort, int fetchSize, Predicate<Seller> action);
 }
@@ -0,0 +1,302 @@
+package model.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import model.entities.Seller;
+
+/**
+ * Sort order for seller queries, on one or more columns, each ascending or
+ * descending. Only the columns listed here can reach the ORDER BY clause, and
+ * seller.Id is always added as the last key so every row has a unique
+ * position for keyset pagination.
+ *
+ * NULL sorts before every value, as in SQL Server: first when ascending, last
+ * when descending. The comparator and the keyset conditions follow that order,
+ * so sellers with no birth date, say, are paged like any other.
+ */
+public class SellerSort {
+
+	public enum Column {
+		ID("seller.Id", Types.INTEGER),
+		NAME("seller.Name", Types.VARCHAR),
+		EMAIL("seller.Email", Types.VARCHAR),
+		BIRTH_DATE("seller.BirthDate", Types.TIMESTAMP),
+		BASE_SALARY("seller.BaseSalary", Types.DOUBLE);
+
+		private final String sql;
+		private final int sqlType;
+
+		private Column(String sql, int sqlType) {
+			this.sql = sql;
+			this.sqlType = sqlType;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public int compare(Seller a, Seller b) {
+			switch (this) {
+			case NAME:
+				return compareValues(a.getName(), b.getName());
+			case EMAIL:
+				return compareValues(a.getEmail(), b.getEmail());
+			case BIRTH_DATE:
+				return compareValues(a.getBirthDate(), b.getBirthDate());
+			case BASE_SALARY:
+				return compareValues(a.getBaseSalary(), b.getBaseSalary());
+			default:
+				return compareValues(a.getId(), b.getId());
+			}
+		}
+
+		public boolean isNull(Seller obj) {
+			switch (this) {
+			case NAME:
+				return obj.getName() == null;
+			case EMAIL:
+				return obj.getEmail() == null;
+			case BIRTH_DATE:
+				return obj.getBirthDate() == null;
+			case BASE_SALARY:
+				return obj.getBaseSalary() == null;
+			default:
+				return obj.getId() == null;
+			}
+		}
+
+		// Binds this column's value of the given seller, used for the "after" key of a page
+		public void bind(PreparedStatement st, int index, Seller obj) throws SQLException {
+			if (isNull(obj)) {
+				st.setNull(index, sqlType);
+				return;
+			}
+			switch (this) {
+			case ID:
+				st.setInt(index, obj.getId());
+				break;
+			case NAME:
+				st.setString(index, obj.getName());
+				break;
+			case EMAIL:
+				st.setString(index, obj.getEmail());
+				break;
+			case BIRTH_DATE:
+				st.setTimestamp(index, new java.sql.Timestamp(obj.getBirthDate().getTime()));
+				break;
+			case BASE_SALARY:
+				st.setDouble(index, obj.getBaseSalary());
+				break;
+			}
+		}
+	}
+
+	// One ORDER BY term
+	public static class Key {
+
+		private final Column column;
+		private final boolean ascending;
+
+		public Key(Column column, boolean ascending) {
+			this.column = column;
+			this.ascending = ascending;
+		}
+
+		public Column getColumn() {
+			return column;
+		}
+
+		public boolean isAscending() {
+			return ascending;
+		}
+
+		@Override
+		public int hashCode() {
+			return column.hashCode() * 31 + (ascending ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return column == other.column && ascending == other.ascending;
+		}
+
+		@Override
+		public String toString() {
+			return column + (ascending ? " ASC" : " DESC");
+		}
+	}
+
+	// The requested keys followed by the id, unless the id was one of them
+	private final List<Key> keys;
+
+	public SellerSort(Column column, boolean ascending) {
+		this(Collections.singletonList(new Key(column, ascending)));
+	}
+
+	/**
+	 * Sorts by the given keys, in order. A column given twice only counts the
+	 * first time, and keys after the id are dropped since the id is unique.
+	 */
+	public SellerSort(List<Key> keys) {
+		List<Key> list = new ArrayList<>();
+		Set<Column> used = EnumSet.noneOf(Column.class);
+		for (Key key : keys) {
+			if (used.add(key.getColumn())) {
+				list.add(key);
+			}
+			if (key.getColumn() == Column.ID) {
+				break;
+			}
+		}
+		if (!used.contains(Column.ID)) {
+			boolean ascending = list.isEmpty() || list.get(list.size() - 1).isAscending();
+			list.add(new Key(Column.ID, ascending));
+		}
+		this.keys = Collections.unmodifiableList(list);
+	}
+
+	public static SellerSort byName() {
+		return new SellerSort(Column.NAME, true);
+	}
+
+	// The same columns in the opposite direction, used to page backwards
+	public SellerSort reversed() {
+		List<Key> list = new ArrayList<>();
+		for (Key key : keys) {
+			list.add(new Key(key.getColumn(), !key.isAscending()));
+		}
+		return new SellerSort(list);
+	}
+
+	// Same order as the SQL
+	public Comparator<Seller> comparator() {
+		return (a, b) -> {
+			for (Key key : keys) {
+				int result = key.getColumn().compare(a, b);
+				if (result != 0) {
+					return key.isAscending() ? result : -result;
+				}
+			}
+			return 0;
+		};
+	}
+
+	// "seller.Name ASC, seller.Id ASC", only built from the whitelisted columns
+	public String orderBy() {
+		StringBuilder sql = new StringBuilder();
+		for (Key key : keys) {
+			if (sql.length() > 0) {
+				sql.append(", ");
+			}
+			sql.append(key.getColumn().getSql()).append(key.isAscending() ? " ASC" : " DESC");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * Condition selecting the rows after a given row in this order, for keyset
+	 * pagination. For keys a, b, id: (a > ?) OR (a = ? AND b > ?) OR (a = ? AND
+	 * b = ? AND id > ?), with < for descending keys. Where the row has NULL the
+	 * comparison is written out instead: "a = ?" becomes "a IS NULL", "a > ?"
+	 * becomes "a IS NOT NULL", "a < ?" becomes "(a < ? OR a IS NULL)" when a is
+	 * set and is left out when it is not (nothing sorts after NULL descending).
+	 * The non-null values are bound by bindAfter(), given the same row.
+	 */
+	public String afterCondition(Seller after) {
+		StringBuilder sql = new StringBuilder("(");
+		for (int i = 0; i < keys.size(); i++) {
+			Key key = keys.get(i);
+			String column = key.getColumn().getSql();
+			boolean isNull = key.getColumn().isNull(after);
+			if (isNull && !key.isAscending()) {
+				continue;
+			}
+			if (sql.length() > 1) {
+				sql.append(" OR ");
+			}
+			sql.append("(");
+			for (int j = 0; j < i; j++) {
+				Column previous = keys.get(j).getColumn();
+				sql.append(previous.getSql()).append(previous.isNull(after) ? " IS NULL AND " : " = ? AND ");
+			}
+			if (isNull) {
+				sql.append(column).append(" IS NOT NULL)");
+			} else if (key.isAscending()) {
+				sql.append(column).append(" > ?)");
+			} else {
+				sql.append("(").append(column).append(" < ? OR ").append(column).append(" IS NULL))");
+			}
+		}
+		// only when the last key is NULL, descending: no row comes after
+		return sql.length() > 1 ? sql.append(")").toString() : "(1 = 0)";
+	}
+
+	// Binds the values of afterCondition(after), returns the next parameter index
+	public int bindAfter(PreparedStatement st, int index, Seller after) throws SQLException {
+		for (int i = 0; i < keys.size(); i++) {
+			Key key = keys.get(i);
+			if (key.getColumn().isNull(after) && !key.isAscending()) {
+				continue;
+			}
+			for (int j = 0; j <= i; j++) {
+				Column column = keys.get(j).getColumn();
+				if (!column.isNull(after)) {
+					column.bind(st, index++, after);
+				}
+			}
+		}
+		return index;
+	}
+
+	public List<Key> getKeys() {
+		return keys;
+	}
+
+	// Text is compared ignoring case, like the default SQL Server collation
+	private static <V extends Comparable<V>> int compareValues(V a, V b) {
+		if (a == null || b == null) {
+			return a == null ? (b == null ? 0 : -1) : 1;
+		}
+		if (a instanceof String) {
+			return ((String) a).compareToIgnoreCase((String) b);
+		}
+		return a.compareTo(b);
+	}
+
+	@Override
+	public int hashCode() {
+		return keys.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SellerSort other = (SellerSort) obj;
+		return keys.equals(other.keys);
+	}
+
+	@Override
+	public String toString() {
+		return "SellerSort " + keys;
+	}
+}
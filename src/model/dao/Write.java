@@ -0,0 +1,16 @@
+package model.dao;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the DAO methods that change the database. Proxies around a DAO rely
+ * on it instead of the method name: a cache kept elsewhere is invalidated
+ * after such a call, and the number it returns is counted as rows changed.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Write {
+}
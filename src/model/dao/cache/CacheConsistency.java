@@ -0,0 +1,25 @@
+package model.dao.cache;
+
+/**
+ * How an entity cache in the DAO layer may answer reads.
+ */
+public enum CacheConsistency {
+
+	// No cache, every read builds new objects
+	NONE,
+
+	// Every read goes to the database, but rows already in memory are refreshed
+	// in place so there is a single instance per row
+	IDENTITY,
+
+	// Like IDENTITY, and lookups by id are answered from memory while the entry is
+	// younger than the TTL. Changes made by other clients can be seen that late.
+	TTL;
+
+	public static CacheConsistency parse(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return IDENTITY;
+		}
+		return valueOf(value.trim().toUpperCase());
+	}
+}
@@ -0,0 +1,115 @@
+package model.dao.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small thread-safe cache with a time-to-live per entry and LRU eviction once
+ * maxSize entries are stored.
+ *
+ * invalidate()/invalidateAll() bump a generation counter. A loader that read
+ * the generation before going to the database passes it to put(), so a value
+ * loaded before a write is never stored after that write.
+ */
+public class ExpiringCache<K, V> {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public ExpiringCache(int maxSize, long ttl, TimeUnit unit) {
+		this.maxSize = maxSize;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && System.nanoTime() - entry.createdAt > ttlNanos) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	// Returns the entry even if it has expired, without counting a hit or miss
+	public synchronized V peek(K key) {
+		Entry<V> entry = entries.get(key);
+		return entry == null ? null : entry.value;
+	}
+
+	public synchronized long generation() {
+		return generation;
+	}
+
+	public synchronized void put(K key, V value, long expectedGeneration) {
+		if (expectedGeneration != generation || maxSize <= 0) {
+			return;
+		}
+		entries.put(key, new Entry<>(value));
+		Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+		while (entries.size() > maxSize && it.hasNext()) {
+			it.next();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized void invalidate(K key) {
+		generation++;
+		entries.remove(key);
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("ExpiringCache [size = %d, hits = %d, misses = %d, evictions = %d, hitRate = %.1f%%]",
+				entries.size(), hits, misses, evictions, getHitRate() * 100);
+	}
+
+	private static class Entry<V> {
+
+		private final V value;
+		private final long createdAt = System.nanoTime();
+
+		private Entry(V value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package model.dao.cache;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+import model.dao.Write;
+
+/**
+ * Wraps a DAO so that a cache kept somewhere else is invalidated after every
+ * write made through it: every interface method marked {@link Write}, whether
+ * it succeeds or not. Other methods are reads and go straight through.
+ */
+public class WriteInvalidation {
+
+	@SuppressWarnings("unchecked")
+	public static <T> T wrap(Class<T> daoInterface, T dao, Runnable invalidate) {
+		return (T) Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[] { daoInterface },
+				(proxy, method, args) -> {
+					boolean write = method.isAnnotationPresent(Write.class);
+					try {
+						return method.invoke(dao, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					} finally {
+						if (write) {
+							invalidate.run();
+						}
+					}
+				});
+	}
+}
@@ -0,0 +1,165 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import db.DeleteResult;
+import model.dao.DepartmentDao;
+import model.dao.cache.ExpiringCache;
+import model.entities.Department;
+import model.entities.DepartmentStatistics;
+
+/**
+ * Read-through cache in front of another DepartmentDao. Departments rarely
+ * change, so findAll/findById are served from memory until the TTL runs out
+ * or a write through this DAO invalidates them.
+ *
+ * The statistics also depend on the sellers: whoever writes sellers calls
+ * {@link #invalidateStatistics()} (see DaoFactory).
+ */
+public class CachingDepartmentDao implements DepartmentDao {
+
+	private static final String ALL = "all";
+
+	private final DepartmentDao dao;
+	private final ExpiringCache<Integer, Department> byId;
+	private final ExpiringCache<String, List<Department>> all;
+	private final ExpiringCache<String, List<DepartmentStatistics>> statistics;
+
+	public CachingDepartmentDao(DepartmentDao dao, int maxSize, long ttlSeconds) {
+		this.dao = dao;
+		this.byId = new ExpiringCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+		this.all = new ExpiringCache<>(1, ttlSeconds, TimeUnit.SECONDS);
+		this.statistics = new ExpiringCache<>(1, ttlSeconds, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void insert(Department obj) {
+		try {
+			dao.insert(obj);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public void update(Department obj) {
+		try {
+			dao.update(obj);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public List<Integer> insertAll(Collection<Department> list) {
+		try {
+			return dao.insertAll(list);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public int updateAll(Collection<Department> list) {
+		try {
+			return dao.updateAll(list);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public void deleteById(Integer id) {
+		try {
+			dao.deleteById(id);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public DeleteResult deleteByIds(Collection<Integer> ids) {
+		try {
+			return dao.deleteByIds(ids);
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public Department findById(Integer id) {
+		Department dep = byId.get(id);
+		if (dep == null) {
+			long generation = byId.generation();
+			dep = dao.findById(id);
+			if (dep != null) {
+				byId.put(id, dep, generation);
+			}
+		}
+		return dep;
+	}
+
+	@Override
+	public List<Department> findAll() {
+		List<Department> list = all.get(ALL);
+		if (list == null) {
+			long generation = all.generation();
+			long idGeneration = byId.generation();
+			list = dao.findAll();
+			all.put(ALL, list, generation);
+			for (Department dep : list) {
+				byId.put(dep.getId(), dep, idGeneration);
+			}
+		}
+		// a copy, so callers cannot change the cached list
+		return new ArrayList<>(list);
+	}
+
+	@Override
+	public List<DepartmentStatistics> findStatistics() {
+		List<DepartmentStatistics> list = statistics.get(ALL);
+		if (list == null) {
+			long generation = statistics.generation();
+			list = dao.findStatistics();
+			statistics.put(ALL, list, generation);
+		}
+		return new ArrayList<>(list);
+	}
+
+	public void invalidateAll() {
+		all.invalidateAll();
+		byId.invalidateAll();
+		statistics.invalidateAll();
+	}
+
+	public void invalidateStatistics() {
+		statistics.invalidateAll();
+	}
+
+	public long getHits() {
+		return all.getHits() + byId.getHits();
+	}
+
+	public long getMisses() {
+		return all.getMisses() + byId.getMisses();
+	}
+
+	public long getEvictions() {
+		return byId.getEvictions();
+	}
+
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CachingDepartmentDao [hits = %d, misses = %d, evictions = %d, hitRate = %.1f%%]",
+				getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+	}
+}
@@ -5,30 +5,49 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
 
+import db.BatchExecutor;
+import db.ColumnIndex;
+import db.ConnectionPool;
 import db.DB;
 import db.DbException;
+import db.DeleteResult;
+import db.RowMapper;
 import model.dao.DepartmentDao;
 import model.entities.Department;
+import model.entities.DepartmentStatistics;
 
 public class DepartmentDaoJDBC implements DepartmentDao {
 
-	private Connection connect;
+	private static final String INSERT_SQL = "INSERT INTO department " + "(Name) " + "VALUES " + "(?)";
 
-	public DepartmentDaoJDBC(Connection connection) {
-		this.connect = connection;
+	// INSERT_SQL's columns, for BatchExecutor.insert
+	private static final String[] INSERT_COLUMNS = { "Name" };
+
+	private static final String UPDATE_SQL = "UPDATE department " + "SET Name = ? " + "WHERE Id = ?";
+
+	private ConnectionPool pool;
+	private int batchSize;
+
+	public DepartmentDaoJDBC(ConnectionPool pool, int batchSize) {
+		this.pool = pool;
+		this.batchSize = batchSize;
 	}
 
 	@Override
 	public void insert(Department obj) {
+		Connection connect = null;
 		PreparedStatement st = null;
 		try {
-			st = connect.prepareStatement("INSERT INTO department " + "(Name) " + "VALUES " + "(?)",
-					Statement.RETURN_GENERATED_KEYS);
+			connect = pool.borrow();
+			st = connect.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
 
-			st.setString(1, obj.getName());
+			bindInsert(st, 0, obj);
 
 			int rowsAffected = st.executeUpdate();
 
@@ -49,17 +68,19 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(connect);
 		}
 	}
 
 	@Override
 	public void update(Department obj) {
+		Connection connect = null;
 		PreparedStatement st = null;
 		try {
-			st = connect.prepareStatement("UPDATE department " + "SET Name = ? " + "WHERE Id = ?");
+			connect = pool.borrow();
+			st = connect.prepareStatement(UPDATE_SQL);
 
-			st.setString(1, obj.getName());
-			st.setInt(2, obj.getId());
+			bindUpdate(st, obj);
 
 			st.executeUpdate();
 
@@ -68,13 +89,69 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(connect);
+		}
+	}
+
+	@Override
+	public List<Integer> insertAll(Collection<Department> list) {
+		Connection connect = null;
+		try {
+			connect = pool.borrow();
+			connect.setAutoCommit(false);
+			List<Integer> ids = BatchExecutor.insert(connect, "department", INSERT_COLUMNS, list, batchSize,
+					this::bindInsert);
+			connect.commit();
+
+			int i = 0;
+			for (Department obj : list) {
+				obj.setId(ids.get(i++));
+			}
+			return ids;
+
+		} catch (SQLException e) {
+			DB.rollback(connect);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(connect);
+		}
+	}
+
+	@Override
+	public int updateAll(Collection<Department> list) {
+		Connection connect = null;
+		try {
+			connect = pool.borrow();
+			connect.setAutoCommit(false);
+			int rowsAffected = BatchExecutor.update(connect, UPDATE_SQL, list, batchSize, this::bindUpdate);
+			connect.commit();
+			return rowsAffected;
+
+		} catch (SQLException e) {
+			DB.rollback(connect);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(connect);
 		}
 	}
 
+	private void bindInsert(PreparedStatement st, int offset, Department obj) throws SQLException {
+		st.setString(offset + 1, obj.getName());
+	}
+
+	private void bindUpdate(PreparedStatement st, Department obj) throws SQLException {
+		st.setString(1, obj.getName());
+		st.setInt(2, obj.getId());
+	}
+
 	@Override
 	public void deleteById(Integer id) {
+		Connection connect = null;
 		PreparedStatement st = null;
 		try {
+			connect = pool.borrow();
 			st = connect.prepareStatement("DELETE FROM department WHERE Id = ?");
 			st.setInt(1, id);
 			st.executeUpdate();
@@ -84,27 +161,43 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(connect);
 		}
 
 	}
 
+	@Override
+	public DeleteResult deleteByIds(Collection<Integer> ids) {
+		Connection connect = null;
+		try {
+			connect = pool.borrow();
+			connect.setAutoCommit(false);
+			DeleteResult result = BatchExecutor.deleteByIds(connect, "DELETE FROM department WHERE Id", ids, batchSize);
+			connect.commit();
+			return result;
+
+		} catch (SQLException e) {
+			DB.rollback(connect);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(connect);
+		}
+	}
+
 	@Override
 	public Department findById(Integer id) {
+		Connection connect = null;
 		PreparedStatement pStatement = null;
 		ResultSet rSet = null;
 		
 		try {
+			connect = pool.borrow();
 			pStatement = connect.prepareStatement("SELECT * FROM department WHERE Id = ? ");
 
 			pStatement.setInt(1, id);
 			rSet = pStatement.executeQuery();
-			if (rSet.next()) {
-				Department dep = new Department();
-				dep.setId(rSet.getInt("Id"));
-				dep.setName(rSet.getString("Name"));
-				return dep;
-			}
-			return null;
+			return RowMapper.mapFirst(rSet, DepartmentDaoJDBC::departmentMapper);
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
@@ -112,26 +205,77 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 		} finally {
 			DB.closeStatement(pStatement);
 			DB.closeResultSet(rSet);
+			DB.closeConnection(connect);
 		}
 	}
 
 	@Override
 	public List<Department> findAll() {
+		Connection connect = null;
 		PreparedStatement pStatement = null;
 		ResultSet rSet = null;
 		try {
+			connect = pool.borrow();
 			pStatement = connect.prepareStatement("SELECT * FROM department ORDER BY Name");
 
 			rSet = pStatement.executeQuery();
-			List<Department> list = new ArrayList<>();
+			return RowMapper.mapAll(rSet, DepartmentDaoJDBC::departmentMapper);
 
-			while (rSet.next()) {
-				Department dep = new Department();
-				dep.setId(rSet.getInt("Id"));
-				dep.setName(rSet.getString("Name"));
-				list.add(dep);
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+
+		} finally {
+			DB.closeStatement(pStatement);
+			DB.closeResultSet(rSet);
+			DB.closeConnection(connect);
+		}
+	}
+
+	/*
+	 * One row per department, aggregated by the database. Ages are counted with
+	 * BirthDate ranges: a seller is at least N years old when born before the day
+	 * after today minus N years. The boundaries are bound as parameters, so the
+	 * query is the same on every database and the column is never computed.
+	 */
+	@Override
+	public List<DepartmentStatistics> findStatistics() {
+		int[] limits = DepartmentStatistics.AGE_LIMITS;
+		StringBuilder sql = new StringBuilder("SELECT department.Id, department.Name, "
+				+ "COUNT(seller.Id) AS SellerCount, SUM(seller.BaseSalary) AS TotalSalary, "
+				+ "AVG(seller.BaseSalary) AS AverageSalary, MIN(seller.BaseSalary) AS MinSalary, "
+				+ "MAX(seller.BaseSalary) AS MaxSalary");
+		for (int group = 0; group <= limits.length; group++) {
+			sql.append(", SUM(CASE WHEN ");
+			if (group < limits.length) {
+				sql.append("seller.BirthDate >= ?");
 			}
-			return list;
+			if (group > 0) {
+				sql.append(group < limits.length ? " AND " : "").append("seller.BirthDate < ?");
+			}
+			sql.append(" THEN 1 ELSE 0 END) AS AgeGroup").append(group);
+		}
+		sql.append(" FROM department LEFT JOIN seller ON seller.DepartmentId = department.Id "
+				+ "GROUP BY department.Id, department.Name ORDER BY department.Name");
+
+		Connection connect = null;
+		PreparedStatement pStatement = null;
+		ResultSet rSet = null;
+		try {
+			connect = pool.borrow();
+			pStatement = connect.prepareStatement(sql.toString());
+
+			LocalDate tomorrow = LocalDate.now().plusDays(1);
+			int index = 1;
+			for (int group = 0; group <= limits.length; group++) {
+				if (group < limits.length) {
+					pStatement.setTimestamp(index++, startOfDay(tomorrow.minusYears(limits[group])));
+				}
+				if (group > 0) {
+					pStatement.setTimestamp(index++, startOfDay(tomorrow.minusYears(limits[group - 1])));
+				}
+			}
+			rSet = pStatement.executeQuery();
+			return RowMapper.mapAll(rSet, DepartmentDaoJDBC::statisticsMapper);
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
@@ -139,7 +283,45 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 		} finally {
 			DB.closeStatement(pStatement);
 			DB.closeResultSet(rSet);
+			DB.closeConnection(connect);
+		}
+	}
+
+	private static Timestamp startOfDay(LocalDate date) {
+		return Timestamp.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
+	private static RowMapper<DepartmentStatistics> statisticsMapper(ColumnIndex columns) throws SQLException {
+		RowMapper<Department> department = departmentMapper(columns);
+		int count = columns.get("SellerCount");
+		int total = columns.get("TotalSalary");
+		int average = columns.get("AverageSalary");
+		int min = columns.get("MinSalary");
+		int max = columns.get("MaxSalary");
+		int[] ageGroups = new int[DepartmentStatistics.getAgeGroupCount()];
+		for (int group = 0; group < ageGroups.length; group++) {
+			ageGroups[group] = columns.get("AgeGroup" + group);
 		}
+		return rSet -> {
+			int[] ageCounts = new int[ageGroups.length];
+			for (int group = 0; group < ageGroups.length; group++) {
+				ageCounts[group] = rSet.getInt(ageGroups[group]);
+			}
+			return new DepartmentStatistics(department.mapRow(rSet), rSet.getInt(count), rSet.getDouble(total),
+					getDouble(rSet, average), getDouble(rSet, min), getDouble(rSet, max), ageCounts);
+		};
+	}
+
+	// null for SQL NULL, as the aggregates of a department without sellers are
+	private static Double getDouble(ResultSet rSet, int column) throws SQLException {
+		double value = rSet.getDouble(column);
+		return rSet.wasNull() ? null : value;
 	}
 
+	// Resolves the column positions once per query, rows are then read by index
+	private static RowMapper<Department> departmentMapper(ColumnIndex columns) throws SQLException {
+		int id = columns.get("Id");
+		int name = columns.get("Name");
+		return rSet -> new Department(rSet.getInt(id), rSet.getString(name));
+	}
 }
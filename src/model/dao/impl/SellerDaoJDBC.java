@@ -6,40 +6,85 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import db.BatchExecutor;
+import db.ColumnIndex;
+import db.ConnectionPool;
 import db.DB;
 import db.DbException;
+import db.DeleteResult;
+import db.RowMapper;
+import model.dao.SalaryAdjustment;
+import model.dao.SellerCriteria;
 import model.dao.SellerDao;
+import model.dao.SellerSort;
+import model.dao.cache.CacheConsistency;
+import model.dao.cache.ExpiringCache;
 import model.entities.Department;
 import model.entities.Seller;
 
 public class SellerDaoJDBC implements SellerDao {
 
-	private Connection con;
+	private static final String INSERT_SQL = "INSERT INTO seller "
+			+ "(Name, Email, BirthDate, BaseSalary, DepartmentId) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
+
+	// INSERT_SQL's columns, for BatchExecutor.insert
+	private static final String[] INSERT_COLUMNS = { "Name", "Email", "BirthDate", "BaseSalary", "DepartmentId" };
+
+	private static final String UPDATE_SQL = "UPDATE seller "
+			+ "SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ? "
+			+ "WHERE Id = ?";
+
+	private static final String SELECT_SQL = "SELECT seller.*,department.Name as DepName "
+			+ "FROM seller INNER JOIN department "
+			+ "ON seller.DepartmentId = department.Id ";
+
+	private ConnectionPool pool;
+	private int batchSize;
+
+	// Identity map: one canonical Seller per row, null when consistency is NONE
+	private CacheConsistency consistency;
+	private ExpiringCache<Integer, Seller> identityMap;
+	// Canonical instances are on screen: their fields are refreshed on the thread that shows them
+	private volatile Executor refreshExecutor = Runnable::run;
+	// rows read but not yet copied into their canonical instance, by id
+	private final Map<Integer, Seller> pendingRefresh = new ConcurrentHashMap<>();
 
-	public SellerDaoJDBC(Connection connection) {
-		this.con = connection;
+	public SellerDaoJDBC(ConnectionPool pool, int batchSize) {
+		this(pool, batchSize, CacheConsistency.NONE, 0, 0);
+	}
+
+	public SellerDaoJDBC(ConnectionPool pool, int batchSize, CacheConsistency consistency, int cacheSize,
+			long ttlSeconds) {
+		this.pool = pool;
+		this.batchSize = batchSize;
+		this.consistency = consistency;
+		if (consistency != CacheConsistency.NONE) {
+			long ttl = consistency == CacheConsistency.TTL ? ttlSeconds : Long.MAX_VALUE / 1_000_000_000L;
+			this.identityMap = new ExpiringCache<>(cacheSize, ttl, TimeUnit.SECONDS);
+		}
 	}
 
 	@Override
 	public void insert(Seller obj) {
+		Connection con = null;
 		PreparedStatement st = null;
 		try {
-			st = con.prepareStatement(
-					"INSERT INTO seller "
-					+ "(Name, Email, BirthDate, BaseSalary, DepartmentId) "
-					+ "VALUES "
-					+ "(?, ?, ?, ?, ?)"
-					, Statement.RETURN_GENERATED_KEYS);
+			con = pool.borrow();
+			st = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
 			
-			st.setString(1, obj.getName());
-			st.setString(2, obj.getEmail());
-			st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
-			st.setDouble(4, obj.getBaseSalary());
-			st.setInt(5, obj.getDepartment().getId());
+			bindInsert(st, 0, obj);
 			
 			int rowsAffected = st.executeUpdate();
 			if (rowsAffected > 0) {
@@ -49,6 +94,7 @@ public class SellerDaoJDBC implements SellerDao {
 					obj.setId(id);
 				}
 				DB.closeResultSet(rs);
+				cacheWritten(obj);
 			
 			}else {
 				throw new DbException("Erro inesperado, nenhuma linha foi afetada!");
@@ -58,73 +104,200 @@ public class SellerDaoJDBC implements SellerDao {
 		
 		}finally {
 			DB.closeStatement(st);
+			DB.closeConnection(con);
 		}
 
 	}
 
 	@Override
 	public void update(Seller obj) {
+		Connection con = null;
 		PreparedStatement st = null;
 		try {
-			st = con.prepareStatement(
-					"UPDATE seller "
-					+"SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ? "
-					+"WHERE Id = ?");
+			con = pool.borrow();
+			st = con.prepareStatement(UPDATE_SQL);
 			
-			st.setString(1, obj.getName());
-			st.setString(2, obj.getEmail());
-			st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
-			st.setDouble(4, obj.getBaseSalary());
-			st.setInt(5, obj.getDepartment().getId());
-			st.setInt(6, obj.getId());
+			bindUpdate(st, obj);
 			
 			st.executeUpdate();
+			cacheWritten(obj);
 			
 		} catch (SQLException e) {
+			evict(obj.getId());
 			throw new DbException(e.getMessage());
 		
 		}finally {
 			DB.closeStatement(st);
+			DB.closeConnection(con);
 		}
 
 
 
 	}
 
+	@Override
+	public List<Integer> insertAll(Collection<Seller> list) {
+		Connection con = null;
+		try {
+			con = pool.borrow();
+			con.setAutoCommit(false);
+			List<Integer> ids = BatchExecutor.insert(con, "seller", INSERT_COLUMNS, list, batchSize,
+					this::bindInsert);
+			con.commit();
+
+			// new rows are not put in the identity map: an import would evict the sellers in use
+			int i = 0;
+			for (Seller obj : list) {
+				obj.setId(ids.get(i++));
+			}
+			return ids;
+
+		} catch (SQLException e) {
+			DB.rollback(con);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(con);
+		}
+	}
+
+	@Override
+	public int updateAll(Collection<Seller> list) {
+		Connection con = null;
+		try {
+			con = pool.borrow();
+			con.setAutoCommit(false);
+			int rowsAffected = BatchExecutor.update(con, UPDATE_SQL, list, batchSize, this::bindUpdate);
+			con.commit();
+			for (Seller obj : list) {
+				cacheWritten(obj);
+			}
+			return rowsAffected;
+
+		} catch (SQLException e) {
+			for (Seller obj : list) {
+				evict(obj.getId());
+			}
+			DB.rollback(con);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(con);
+		}
+	}
+
+	// One statement for every matching row, instead of an UPDATE of all the columns per seller
+	@Override
+	public int adjustSalary(SellerCriteria criteria, SalaryAdjustment adjustment) {
+		List<Object> params = new ArrayList<>();
+		params.add(adjustment.getOperand());
+		List<String> conditions = criteriaConditions(criteria, params);
+
+		StringBuilder sql = new StringBuilder("UPDATE seller SET BaseSalary = ").append(adjustment.sqlExpression());
+		if (!conditions.isEmpty()) {
+			sql.append(" WHERE ").append(String.join(" AND ", conditions));
+		}
+
+		Connection con = null;
+		PreparedStatement st = null;
+		try {
+			con = pool.borrow();
+			st = con.prepareStatement(sql.toString());
+			int index = 1;
+			for (Object param : params) {
+				bindParameter(st, index++, param);
+			}
+			return st.executeUpdate();
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+
+		} finally {
+			// cached sellers may be among the rows changed, whether or not the update went through
+			invalidateCache();
+			DB.closeStatement(st);
+			DB.closeConnection(con);
+		}
+	}
+
+	private void bindInsert(PreparedStatement st, int offset, Seller obj) throws SQLException {
+		st.setString(offset + 1, obj.getName());
+		st.setString(offset + 2, obj.getEmail());
+		st.setDate(offset + 3, new java.sql.Date(obj.getBirthDate().getTime()));
+		st.setDouble(offset + 4, obj.getBaseSalary());
+		st.setInt(offset + 5, obj.getDepartment().getId());
+	}
+
+	private void bindUpdate(PreparedStatement st, Seller obj) throws SQLException {
+		bindInsert(st, 0, obj);
+		st.setInt(6, obj.getId());
+	}
+
 	@Override
 	public void deleteById(Integer id) {
+		Connection con = null;
 		PreparedStatement st = null;
 		try {
+			con = pool.borrow();
 			st = con.prepareStatement("DELETE FROM seller WHERE Id = ?");
 			st.setInt(1, id);
 			st.executeUpdate();
+			evict(id);
 			
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
 		
 		}finally {
 			DB.closeStatement(st);
+			DB.closeConnection(con);
 		}
 
 	}
 
+	@Override
+	public DeleteResult deleteByIds(Collection<Integer> ids) {
+		Connection con = null;
+		try {
+			con = pool.borrow();
+			con.setAutoCommit(false);
+			DeleteResult result = BatchExecutor.deleteByIds(con, "DELETE FROM seller WHERE Id", ids, batchSize);
+			con.commit();
+			for (Integer id : result.getDeletedIds()) {
+				evict(id);
+			}
+			return result;
+
+		} catch (SQLException e) {
+			DB.rollback(con);
+			throw new DbException("Transaction rolled back! Caused by: " + e.getMessage());
+
+		} finally {
+			DB.closeConnection(con);
+		}
+	}
+
 	@Override
 	public Seller findByid(Integer id) {
+		if (consistency == CacheConsistency.TTL) {
+			Seller cached = identityMap.get(id);
+			if (cached != null) {
+				return current(cached);
+			}
+		}
+
+		Connection con = null;
 		PreparedStatement pStatement = null;
 		ResultSet rSet = null;
 		try {
+			con = pool.borrow();
 			pStatement = con.prepareStatement(
 					"SELECT seller.*,department.Name as DepName " + "FROM seller INNER JOIN department "
 							+ "ON seller.DepartmentId = department.Id " + "WHERE seller.Id = ?");
 
 			pStatement.setInt(1, id);
+			long generation = cacheGeneration();
 			rSet = pStatement.executeQuery();
-			if (rSet.next()) {
-				Department department = instantiateDepartment(rSet);
-				Seller obj = instantiateSeller(rSet, department);
-				return obj;
-			}
-			return null;
+			return RowMapper.mapFirst(rSet, columns -> sellerMapper(columns, generation));
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
@@ -132,53 +305,252 @@ public class SellerDaoJDBC implements SellerDao {
 		} finally {
 			DB.closeStatement(pStatement);
 			DB.closeResultSet(rSet);
+			DB.closeConnection(con);
+		}
+	}
+
+	// Resolves the column positions once per query, rows are then read by index
+	private RowMapper<Seller> sellerMapper(ColumnIndex columns, long generation) throws SQLException {
+		RowMapper<Seller> mapper = uncachedSellerMapper(columns);
+		return rSet -> canonical(mapper.mapRow(rSet), generation);
+	}
+
+	// New objects that are not put in the identity map, for reads too large to cache
+	private static RowMapper<Seller> uncachedSellerMapper(ColumnIndex columns) throws SQLException {
+		int id = columns.get("Id");
+		int name = columns.get("Name");
+		int email = columns.get("Email");
+		int birthDate = columns.get("BirthDate");
+		int baseSalary = columns.get("BaseSalary");
+		int departmentId = columns.get("DepartmentId");
+		int departmentName = columns.get("DepName");
+		Map<Integer, Department> departments = new HashMap<>();
+
+		return rSet -> {
+			int depId = rSet.getInt(departmentId);
+			Department dep = departments.get(depId);
+			if (dep == null) {
+				dep = new Department(depId, rSet.getString(departmentName));
+				departments.put(depId, dep);
+			}
+			// Timestamp is a java.util.Date already, no need to copy it into a new one
+			return new Seller(rSet.getInt(id), rSet.getString(name), rSet.getString(email),
+					rSet.getTimestamp(birthDate), rSet.getDouble(baseSalary), dep);
+		};
+	}
+
+	/**
+	 * Executor that applies new row values to the canonical instances, the
+	 * JavaFX application thread in the application. Until the copy has run,
+	 * reads return the row just loaded instead of the canonical instance, so
+	 * callers on other threads never get stale values. Runs in place by default.
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	// Drops every canonical instance, e.g. after a department they refer to was changed
+	public void invalidateCache() {
+		if (identityMap != null) {
+			identityMap.invalidateAll();
+		}
+	}
+
+	// Returns the instance already in the identity map, refreshed with the row just read
+	private Seller canonical(Seller loaded, long generation) {
+		if (identityMap == null) {
+			return loaded;
+		}
+		Seller existing = identityMap.peek(loaded.getId());
+		if (existing == null || existing == loaded) {
+			identityMap.put(loaded.getId(), loaded, generation);
+			return loaded;
+		}
+		Integer id = loaded.getId();
+		Seller source = loaded;
+		pendingRefresh.put(id, source);
+		refreshExecutor.execute(() -> {
+			copyInto(existing, source);
+			// compared by identity, Seller.equals only looks at the id
+			pendingRefresh.computeIfPresent(id, (key, pending) -> pending == source ? null : pending);
+		});
+		identityMap.put(id, existing, generation);
+		return pendingRefresh.get(id) == source ? source : existing;
+	}
+
+	// The canonical instance, or the newer row still waiting to be copied into it
+	private Seller current(Seller cached) {
+		Seller pending = pendingRefresh.get(cached.getId());
+		return pending != null ? pending : cached;
+	}
+
+	// After a successful write the saved object (or the canonical one it was copied into) is current
+	private void cacheWritten(Seller obj) {
+		if (identityMap != null) {
+			canonical(obj, identityMap.generation());
+		}
+	}
+
+	private void evict(Integer id) {
+		if (identityMap != null && id != null) {
+			identityMap.invalidate(id);
 		}
 	}
 
-	private Seller instantiateSeller(ResultSet rSet, Department department) throws SQLException {
-		Seller obj = new Seller();
-		obj.setId(rSet.getInt("Id"));
-		obj.setName(rSet.getString("Name"));
-		obj.setEmail(rSet.getString("Email"));
-		obj.setBaseSalary(rSet.getDouble("BaseSalary"));
-		obj.setBirthDate(new java.util.Date(rSet.getTimestamp("BirthDate").getTime()));
-		obj.setDepartment(department);
-		return obj;
+	private long cacheGeneration() {
+		return identityMap == null ? 0 : identityMap.generation();
+	}
+
+	private static void copyInto(Seller target, Seller source) {
+		target.setName(source.getName());
+		target.setEmail(source.getEmail());
+		target.setBirthDate(source.getBirthDate());
+		target.setBaseSalary(source.getBaseSalary());
+		target.setDepartment(source.getDepartment());
 	}
 
-	private Department instantiateDepartment(ResultSet rSet) throws SQLException {
-		Department dep = new Department();
-		dep.setId(rSet.getInt("DepartmentId"));
-		dep.setName(rSet.getString("DepName"));
-		return dep;
+	public String getCacheStatistics() {
+		return identityMap == null ? "disabled" : identityMap.toString();
 	}
 
 	@Override
 	public List<Seller> findAll() {
+		return search(SellerCriteria.any(), null, 0, SellerSort.byName());
+	}
+
+	@Override
+	public List<Seller> findPage(Seller after, int limit, SellerSort sort) {
+		return search(SellerCriteria.any(), after, limit, sort);
+	}
+
+	@Override
+	public List<Seller> search(SellerCriteria criteria) {
+		return search(criteria, null, 0, SellerSort.byName());
+	}
+
+	// limit <= 0 returns every matching row
+	@Override
+	public List<Seller> search(SellerCriteria criteria, Seller after, int limit, SellerSort sort) {
+		List<Object> params = new ArrayList<>();
+		List<String> conditions = criteriaConditions(criteria, params);
+
+		// Keyset pagination: continue right after the last row of the previous page
+		if (after != null) {
+			conditions.add(sort.afterCondition(after));
+		}
+
+		StringBuilder sql = new StringBuilder(SELECT_SQL);
+		if (!conditions.isEmpty()) {
+			sql.append("WHERE ").append(String.join(" AND ", conditions)).append(" ");
+		}
+		sql.append("ORDER BY ").append(sort.orderBy());
+		if (limit > 0) {
+			sql.append(" OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+		}
+
+		Connection con = null;
 		PreparedStatement pStatement = null;
 		ResultSet rSet = null;
 		try {
-			pStatement = con.prepareStatement(
-					"SELECT seller.*,department.Name as DepName " + "FROM seller INNER JOIN department "
-							+ "ON seller.DepartmentId = department.Id " + "ORDER BY Name");
+			con = pool.borrow();
+			pStatement = con.prepareStatement(sql.toString());
 
+			int index = 1;
+			for (Object param : params) {
+				bindParameter(pStatement, index++, param);
+			}
+			if (after != null) {
+				index = sort.bindAfter(pStatement, index, after);
+			}
+			if (limit > 0) {
+				pStatement.setInt(index, limit);
+			}
+			long generation = cacheGeneration();
 			rSet = pStatement.executeQuery();
 
-			List<Seller> list = new ArrayList<>();
-			Map<Integer, Department> map = new HashMap<>();
-			while (rSet.next()) {
+			return RowMapper.mapAll(rSet, columns -> sellerMapper(columns, generation));
 
-				Department depart = map.get(rSet.getInt("DepartmentId"));
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
 
-				if (depart == null) {
-					depart = instantiateDepartment(rSet);
-					map.put(rSet.getInt("DepartmentId"), depart);
-				}
+		} finally {
+			DB.closeStatement(pStatement);
+			DB.closeResultSet(rSet);
+			DB.closeConnection(con);
+		}
+	}
+
+	@Override
+	public int count(SellerCriteria criteria) {
+		List<Object> params = new ArrayList<>();
+		List<String> conditions = criteriaConditions(criteria, params);
+		StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM seller");
+		if (!conditions.isEmpty()) {
+			sql.append(" WHERE ").append(String.join(" AND ", conditions));
+		}
 
-				Seller obj = instantiateSeller(rSet, depart);
-				list.add(obj);
+		Connection con = null;
+		PreparedStatement pStatement = null;
+		ResultSet rSet = null;
+		try {
+			con = pool.borrow();
+			pStatement = con.prepareStatement(sql.toString());
+			int index = 1;
+			for (Object param : params) {
+				bindParameter(pStatement, index++, param);
 			}
-			return list;
+			rSet = pStatement.executeQuery();
+			rSet.next();
+			return rSet.getInt(1);
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+
+		} finally {
+			DB.closeStatement(pStatement);
+			DB.closeResultSet(rSet);
+			DB.closeConnection(con);
+		}
+	}
+
+	/*
+	 * For exports: the rows are never collected in a list and bypass the identity
+	 * map, so memory stays flat whatever the number of rows. fetchSize rows are
+	 * read from the server at a time.
+	 */
+	@Override
+	public long forEach(SellerCriteria criteria, SellerSort sort, int fetchSize, Predicate<Seller> action) {
+		List<Object> params = new ArrayList<>();
+		List<String> conditions = criteriaConditions(criteria, params);
+		StringBuilder sql = new StringBuilder(SELECT_SQL);
+		if (!conditions.isEmpty()) {
+			sql.append("WHERE ").append(String.join(" AND ", conditions)).append(" ");
+		}
+		sql.append("ORDER BY ").append(sort.orderBy());
+
+		Connection con = null;
+		PreparedStatement pStatement = null;
+		ResultSet rSet = null;
+		try {
+			con = pool.borrow();
+			// not taken by the statement cache, so the fetch size is not left on a shared statement
+			pStatement = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			pStatement.setFetchSize(fetchSize);
+			int index = 1;
+			for (Object param : params) {
+				bindParameter(pStatement, index++, param);
+			}
+			rSet = pStatement.executeQuery();
+
+			RowMapper<Seller> mapper = uncachedSellerMapper(ColumnIndex.of(rSet));
+			long rows = 0;
+			while (rSet.next()) {
+				rows++;
+				if (!action.test(mapper.mapRow(rSet))) {
+					break;
+				}
+			}
+			return rows;
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
@@ -186,37 +558,74 @@ public class SellerDaoJDBC implements SellerDao {
 		} finally {
 			DB.closeStatement(pStatement);
 			DB.closeResultSet(rSet);
+			DB.closeConnection(con);
+		}
+	}
+
+	// Only sargable predicates on the bare columns, so the indexes on them can be used
+	private static List<String> criteriaConditions(SellerCriteria criteria, List<Object> params) {
+		List<String> conditions = new ArrayList<>();
+		if (criteria.getNamePrefix() != null) {
+			conditions.add("seller.Name LIKE ? ESCAPE '\\'");
+			params.add(SellerCriteria.likePrefix(criteria.getNamePrefix()));
+		}
+		if (criteria.getEmailPrefix() != null) {
+			conditions.add("seller.Email LIKE ? ESCAPE '\\'");
+			params.add(SellerCriteria.likePrefix(criteria.getEmailPrefix()));
+		}
+		if (criteria.getDepartmentId() != null) {
+			conditions.add("seller.DepartmentId = ?");
+			params.add(criteria.getDepartmentId());
+		}
+		if (criteria.getMinSalary() != null) {
+			conditions.add("seller.BaseSalary >= ?");
+			params.add(criteria.getMinSalary());
+		}
+		if (criteria.getMaxSalary() != null) {
+			conditions.add("seller.BaseSalary <= ?");
+			params.add(criteria.getMaxSalary());
 		}
+		if (criteria.getBirthDateFrom() != null) {
+			conditions.add("seller.BirthDate >= ?");
+			params.add(criteria.getBirthDateFrom());
+		}
+		if (criteria.getBirthDateTo() != null) {
+			conditions.add("seller.BirthDate < ?");
+			params.add(criteria.getBirthDateTo());
+		}
+		return conditions;
+	}
 
+	private static void bindParameter(PreparedStatement st, int index, Object value) throws SQLException {
+		if (value instanceof String) {
+			st.setString(index, (String) value);
+		} else if (value instanceof Integer) {
+			st.setInt(index, (Integer) value);
+		} else if (value instanceof Double) {
+			st.setDouble(index, (Double) value);
+		} else if (value instanceof Date) {
+			st.setTimestamp(index, new java.sql.Timestamp(((Date) value).getTime()));
+		} else {
+			st.setObject(index, value);
+		}
 	}
 
 	@Override
 	public List<Seller> findByDepartment(Department department) {
+		Connection con = null;
 		PreparedStatement pStatement = null;
 		ResultSet rSet = null;
 		try {
+			con = pool.borrow();
 			pStatement = con.prepareStatement(
 					"SELECT seller.*,department.Name as DepName " + "FROM seller INNER JOIN department "
 							+ "ON seller.DepartmentId = department.Id " + "WHERE DepartmentId = ? " + "ORDER BY Name");
 
 			pStatement.setInt(1, department.getId());
+			long generation = cacheGeneration();
 			rSet = pStatement.executeQuery();
 
-			List<Seller> list = new ArrayList<>();
-			Map<Integer, Department> map = new HashMap<>();
-			while (rSet.next()) {
-
-				Department depart = map.get(rSet.getInt("DepartmentId"));
-
-				if (depart == null) {
-					depart = instantiateDepartment(rSet);
-					map.put(rSet.getInt("DepartmentId"), depart);
-				}
-
-				Seller obj = instantiateSeller(rSet, department);
-				list.add(obj);
-			}
-			return list;
+			return RowMapper.mapAll(rSet, columns -> sellerMapper(columns, generation));
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
@@ -224,6 +633,7 @@ public class SellerDaoJDBC implements SellerDao {
 		} finally {
 			DB.closeStatement(pStatement);
 			DB.closeResultSet(rSet);
+			DB.closeConnection(con);
 		}
 	}
 
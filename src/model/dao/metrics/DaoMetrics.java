@@ -0,0 +1,164 @@
+package model.dao.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import db.DeleteResult;
+import model.dao.Write;
+
+/**
+ * Call count, errors, rows and latency of every DAO method.
+ *
+ * {@link #instrument} wraps a DAO in a proxy that times each call of its
+ * interface. Every method is registered as an MXBean named
+ * "workshop.dao:type=SellerDao,method=findAll" (visible in JConsole), and
+ * {@link #startLogging} writes a summary of the methods called so far to the
+ * "db.metrics" logger at a fixed interval.
+ */
+public class DaoMetrics {
+
+	private static final Logger LOGGER = Logger.getLogger("db.metrics");
+	private static final Map<String, MethodMetrics> metrics = new ConcurrentSkipListMap<>();
+	private static ScheduledExecutorService logger = null;
+
+	@SuppressWarnings("unchecked")
+	public static <T> T instrument(Class<T> daoInterface, T dao) {
+		String type = daoInterface.getSimpleName();
+		Map<Method, MethodMetrics> byMethod = new ConcurrentHashMap<>();
+		for (Method method : daoInterface.getMethods()) {
+			byMethod.put(method, register(type, method));
+		}
+		return (T) Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[] { daoInterface },
+				new MetricsHandler(dao, byMethod));
+	}
+
+	public static Collection<MethodMetrics> getMetrics() {
+		return metrics.values();
+	}
+
+	public static synchronized void startLogging(long intervalSeconds) {
+		if (logger != null || intervalSeconds <= 0) {
+			return;
+		}
+		logger = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "dao-metrics-log");
+			t.setDaemon(true);
+			return t;
+		});
+		logger.scheduleAtFixedRate(DaoMetrics::logSummary, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	public static synchronized void stopLogging() {
+		if (logger != null) {
+			logger.shutdownNow();
+			logger = null;
+		}
+	}
+
+	public static void logSummary() {
+		StringBuilder sb = new StringBuilder("DAO metrics:");
+		boolean called = false;
+		for (MethodMetrics method : metrics.values()) {
+			if (method.getCallCount() > 0) {
+				sb.append(System.lineSeparator()).append("  ").append(method);
+				called = true;
+			}
+		}
+		if (called) {
+			LOGGER.info(sb.toString());
+		}
+	}
+
+	// Overloads share one entry: findAll() and findAll(x) are reported together
+	private static MethodMetrics register(String type, Method method) {
+		String name = type + "." + method.getName();
+		return metrics.computeIfAbsent(name, key -> {
+			MethodMetrics created = new MethodMetrics(key);
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName objectName = new ObjectName("workshop.dao:type=" + type + ",method=" + method.getName());
+				if (!server.isRegistered(objectName)) {
+					server.registerMBean(created, objectName);
+				}
+			} catch (JMException e) {
+				LOGGER.warning("Could not register " + key + " in JMX: " + e.getMessage());
+			}
+			return created;
+		});
+	}
+
+	/*
+	 * Number of rows a DAO call returned or changed: the size of a list, the rows
+	 * a write changed (its int, or the rows a DeleteResult reports deleted), the
+	 * rows forEach streamed (a long). Any other read result,
+	 * an object or count's number, is one row.
+	 */
+	private static int rowCount(Method method, Object result) {
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof Long) {
+			return (int) Math.min(Integer.MAX_VALUE, (Long) result);
+		}
+		if (result instanceof Integer && method.isAnnotationPresent(Write.class)) {
+			return (Integer) result;
+		}
+		if (result instanceof DeleteResult) {
+			return ((DeleteResult) result).getRowsAffected();
+		}
+		return result == null ? 0 : 1;
+	}
+
+	private static class MetricsHandler implements InvocationHandler {
+
+		private final Object dao;
+		private final Map<Method, MethodMetrics> byMethod;
+
+		private MetricsHandler(Object dao, Map<Method, MethodMetrics> byMethod) {
+			this.dao = dao;
+			this.byMethod = byMethod;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			MethodMetrics target = byMethod.get(method);
+			if (target == null) {
+				// equals, hashCode, toString
+				return invokeDao(method, args);
+			}
+			long start = System.nanoTime();
+			boolean failed = true;
+			Object result = null;
+			try {
+				result = invokeDao(method, args);
+				failed = false;
+				return result;
+			} finally {
+				target.record(System.nanoTime() - start, rowCount(method, result), failed);
+			}
+		}
+
+		private Object invokeDao(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(dao, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
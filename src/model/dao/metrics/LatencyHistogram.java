@@ -0,0 +1,90 @@
+package model.dao.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets: values below 16
+ * microseconds are exact, above that each power of two is split in 8 buckets,
+ * so a percentile is off by at most 12.5%. Covers up to about 25 days; the
+ * max is kept exactly.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 8;
+	private static final int LINEAR_LIMIT = 16;
+	private static final int BUCKETS = LINEAR_LIMIT + (41 - 4) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong sumMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void record(long nanos) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		counts.incrementAndGet(bucket(micros));
+		total.incrementAndGet();
+		sumMicros.addAndGet(micros);
+		long max;
+		while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+		}
+	}
+
+	public long getCount() {
+		return total.get();
+	}
+
+	public double getMeanMillis() {
+		long count = total.get();
+		return count == 0 ? 0.0 : sumMicros.get() / (count * 1000.0);
+	}
+
+	public double getMaxMillis() {
+		return maxMicros.get() / 1000.0;
+	}
+
+	// percentile between 0 and 1, the upper bound of the bucket it falls in
+	public double getPercentileMillis(double percentile) {
+		long count = total.get();
+		if (count == 0) {
+			return 0.0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+			}
+		}
+		return getMaxMillis();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		total.set(0);
+		sumMicros.set(0);
+		maxMicros.set(0);
+	}
+
+	private static int bucket(long micros) {
+		if (micros < LINEAR_LIMIT) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return Math.min(BUCKETS - 1, LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + sub);
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+		int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+	}
+}
@@ -0,0 +1,81 @@
+package model.dao.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MethodMetrics implements MethodMetricsMXBean {
+
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong rows = new AtomicLong();
+
+	public MethodMetrics(String name) {
+		this.name = name;
+	}
+
+	public void record(long nanos, int rowCount, boolean failed) {
+		latency.record(nanos);
+		rows.addAndGet(rowCount);
+		if (failed) {
+			errors.incrementAndGet();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCallCount() {
+		return latency.getCount();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errors.get();
+	}
+
+	@Override
+	public long getRowCount() {
+		return rows.get();
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return latency.getMeanMillis();
+	}
+
+	@Override
+	public double getP50Millis() {
+		return latency.getPercentileMillis(0.50);
+	}
+
+	@Override
+	public double getP95Millis() {
+		return latency.getPercentileMillis(0.95);
+	}
+
+	@Override
+	public double getP99Millis() {
+		return latency.getPercentileMillis(0.99);
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return latency.getMaxMillis();
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		errors.set(0);
+		rows.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s [calls = %d, errors = %d, rows = %d, mean = %.2f ms, p50 = %.2f ms, p95 = %.2f ms, "
+				+ "p99 = %.2f ms, max = %.2f ms]", name, getCallCount(), getErrorCount(), getRowCount(),
+				getMeanMillis(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+	}
+}
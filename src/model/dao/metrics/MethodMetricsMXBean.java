@@ -0,0 +1,26 @@
+package model.dao.metrics;
+
+/**
+ * What JConsole shows for one DAO method. Times are in milliseconds and
+ * count every call since the start or the last reset().
+ */
+public interface MethodMetricsMXBean {
+
+	long getCallCount();
+
+	long getErrorCount();
+
+	long getRowCount();
+
+	double getMeanMillis();
+
+	double getP50Millis();
+
+	double getP95Millis();
+
+	double getP99Millis();
+
+	double getMaxMillis();
+
+	void reset();
+}
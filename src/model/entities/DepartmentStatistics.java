@@ -0,0 +1,93 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Salary and age figures of the sellers of one department, as computed by the
+ * database. Departments without sellers have a count of zero and no
+ * min/max/average.
+ */
+public class DepartmentStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Lower bounds (in years) of the age groups after the first: under 25, 25-34, 35-44, 45-54, 55 and over
+	public static final int[] AGE_LIMITS = { 25, 35, 45, 55 };
+
+	private final Department department;
+	private final int sellerCount;
+	private final double totalSalary;
+	private final Double averageSalary;
+	private final Double minSalary;
+	private final Double maxSalary;
+	private final int[] ageCounts;
+
+	public DepartmentStatistics(Department department, int sellerCount, double totalSalary, Double averageSalary,
+			Double minSalary, Double maxSalary, int[] ageCounts) {
+		if (ageCounts.length != AGE_LIMITS.length + 1) {
+			throw new IllegalArgumentException("Expected " + (AGE_LIMITS.length + 1) + " age groups");
+		}
+		this.department = department;
+		this.sellerCount = sellerCount;
+		this.totalSalary = totalSalary;
+		this.averageSalary = averageSalary;
+		this.minSalary = minSalary;
+		this.maxSalary = maxSalary;
+		this.ageCounts = ageCounts.clone();
+	}
+
+	public static int getAgeGroupCount() {
+		return AGE_LIMITS.length + 1;
+	}
+
+	// "< 25", "25-34", ..., "55+"
+	public static String getAgeGroupLabel(int group) {
+		if (group == 0) {
+			return "< " + AGE_LIMITS[0];
+		}
+		if (group == AGE_LIMITS.length) {
+			return AGE_LIMITS[group - 1] + "+";
+		}
+		return AGE_LIMITS[group - 1] + "-" + (AGE_LIMITS[group] - 1);
+	}
+
+	public Department getDepartment() {
+		return department;
+	}
+
+	public String getDepartmentName() {
+		return department.getName();
+	}
+
+	public int getSellerCount() {
+		return sellerCount;
+	}
+
+	public double getTotalSalary() {
+		return totalSalary;
+	}
+
+	public Double getAverageSalary() {
+		return averageSalary;
+	}
+
+	public Double getMinSalary() {
+		return minSalary;
+	}
+
+	public Double getMaxSalary() {
+		return maxSalary;
+	}
+
+	public int getAgeCount(int group) {
+		return ageCounts[group];
+	}
+
+	@Override
+	public String toString() {
+		return "DepartmentStatistics [department = " + department + ", sellerCount = " + sellerCount
+				+ ", totalSalary = " + totalSalary + ", averageSalary = " + averageSalary + ", minSalary = "
+				+ minSalary + ", maxSalary = " + maxSalary + ", ageCounts = " + Arrays.toString(ageCounts) + "]";
+	}
+}
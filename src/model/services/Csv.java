@@ -0,0 +1,77 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV: comma separated fields, optionally in double quotes,
+ * with "" for a quote inside a quoted field. Quoted fields may span lines.
+ */
+public class Csv {
+
+	public static final char SEPARATOR = ',';
+
+	// True when the text read so far ends inside a quoted field, so the record continues on the next line
+	public static boolean isOpen(CharSequence record) {
+		boolean open = false;
+		for (int i = 0; i < record.length(); i++) {
+			if (record.charAt(i) == '"') {
+				open = !open;
+			}
+		}
+		return open;
+	}
+
+	public static List<String> split(String record) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == SEPARATOR) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	// Appends the value, quoted only when it has to be
+	public static void appendField(StringBuilder sb, String value) {
+		if (value == null) {
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			sb.append(value);
+			return;
+		}
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				sb.append('"');
+			}
+			sb.append(c);
+		}
+		sb.append('"');
+	}
+}
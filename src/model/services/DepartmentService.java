@@ -1,10 +1,15 @@
 package model.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import db.DeleteResult;
 import model.dao.DaoFactory;
 import model.dao.DepartmentDao;
 import model.entities.Department;
+import model.entities.DepartmentStatistics;
 
 public class DepartmentService {
 
@@ -14,6 +19,11 @@ public class DepartmentService {
 		return departmentDao.findAll();
 	}
 	
+	// Seller count, salaries and ages per department, computed by the database
+	public List<DepartmentStatistics> findStatistics() {
+		return departmentDao.findStatistics();
+	}
+	
 	public void saveOrUpdate(Department dep) {
 		if (dep.getId() == null) {
 			departmentDao.insert(dep);
@@ -23,7 +33,56 @@ public class DepartmentService {
 		}
 	}
 	
+	// Bulk version of saveOrUpdate: new objects are inserted and existing ones updated in batches
+	public void saveOrUpdateAll(Collection<Department> list) {
+		List<Department> inserts = new ArrayList<>();
+		List<Department> updates = new ArrayList<>();
+		for (Department obj : list) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			} else {
+				updates.add(obj);
+			}
+		}
+		if (!inserts.isEmpty()) {
+			departmentDao.insertAll(inserts);
+		}
+		if (!updates.isEmpty()) {
+			departmentDao.updateAll(updates);
+		}
+	}
+	
 	public void remove(Department obj) {
 		departmentDao.deleteById(obj.getId());
 	}
+	
+	// Deletes all of them in one transaction; rows still referenced elsewhere are reported, not deleted
+	public DeleteResult removeAll(Collection<Department> list) {
+		List<Integer> ids = new ArrayList<>(list.size());
+		for (Department obj : list) {
+			ids.add(obj.getId());
+		}
+		return departmentDao.deleteByIds(ids);
+	}
+	
+	// Async versions, run on the ServiceExecutor instead of the caller's thread
+	public CompletableFuture<List<Department>> findAllAsync() {
+		return ServiceExecutor.supply(this::findAll);
+	}
+	
+	public CompletableFuture<List<DepartmentStatistics>> findStatisticsAsync() {
+		return ServiceExecutor.supply(this::findStatistics);
+	}
+	
+	public CompletableFuture<Void> saveOrUpdateAsync(Department obj) {
+		return ServiceExecutor.run(() -> saveOrUpdate(obj));
+	}
+	
+	public CompletableFuture<Void> removeAsync(Department obj) {
+		return ServiceExecutor.run(() -> remove(obj));
+	}
+	
+	public CompletableFuture<DeleteResult> removeAllAsync(Collection<Department> list) {
+		return ServiceExecutor.supply(() -> removeAll(list));
+	}
 }
@@ -0,0 +1,98 @@
+package model.services;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of a CSV import, or its outcome once finished. Every rejected row
+ * is counted, but only the first errors are kept with their line numbers.
+ */
+public class ImportReport {
+
+	public static class RowError {
+
+		private final long line;
+		private final String message;
+
+		public RowError(long line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		public long getLine() {
+			return line;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + line + ": " + message;
+		}
+	}
+
+	private final long bytesRead;
+	private final long totalBytes;
+	private final long rowsRead;
+	private final long imported;
+	private final long rejected;
+	private final List<RowError> errors;
+	private final boolean finished;
+	private final boolean cancelled;
+	private final String failure;
+
+	public ImportReport(long bytesRead, long totalBytes, long rowsRead, long imported, long rejected,
+			List<RowError> errors, boolean finished, boolean cancelled, String failure) {
+		this.bytesRead = bytesRead;
+		this.totalBytes = totalBytes;
+		this.rowsRead = rowsRead;
+		this.imported = imported;
+		this.rejected = rejected;
+		this.errors = Collections.unmodifiableList(errors);
+		this.finished = finished;
+		this.cancelled = cancelled;
+		this.failure = failure;
+	}
+
+	// Share of the file read so far, between 0 and 1
+	public double getProgress() {
+		return totalBytes <= 0 ? 0 : Math.min(1.0, (double) bytesRead / totalBytes);
+	}
+
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public List<RowError> getErrors() {
+		return errors;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	// Why the import stopped before the end of the file, null if it did not
+	public String getFailure() {
+		return failure;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportReport [rowsRead = " + rowsRead + ", imported = " + imported + ", rejected = " + rejected
+				+ ", finished = " + finished + ", cancelled = " + cancelled + ", failure = " + failure + "]";
+	}
+}
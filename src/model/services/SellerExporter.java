@@ -0,0 +1,258 @@
+package model.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import model.dao.SellerCriteria;
+import model.dao.SellerDao;
+import model.dao.SellerSort;
+import model.entities.Seller;
+
+/**
+ * Writes sellers to a CSV or JSON file as they are read from the database
+ * (SellerDao.forEach), without ever holding the whole table: rows are
+ * encoded into one reused buffer that is written to the file channel, through
+ * gzip when asked. Memory is the same for a hundred rows or ten million.
+ *
+ * The CSV has the columns SellerImporter expects (plus Id), so an export can
+ * be imported again. An instance runs one export; cancel() may be called from
+ * any thread, and a cancelled or failed export deletes its file.
+ */
+public class SellerExporter {
+
+	public enum Format {
+		CSV, JSON
+	}
+
+	@FunctionalInterface
+	public interface ProgressListener {
+		void onProgress(long rowsWritten, long totalRows);
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE
+			.withZone(ZoneId.systemDefault());
+
+	private final SellerDao sellerDao;
+	private final int fetchSize;
+	private volatile boolean cancelled;
+
+	// Output state of the running export
+	private WritableByteChannel channel;
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final StringBuilder text = new StringBuilder(BUFFER_SIZE);
+
+	public SellerExporter(SellerDao sellerDao, int fetchSize) {
+		this.sellerDao = sellerDao;
+		this.fetchSize = fetchSize;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Exports the sellers matching the criteria, by id, and returns how many
+	 * were written. Throws CancellationException if cancelled.
+	 */
+	public long run(Path file, Format format, boolean gzip, SellerCriteria criteria, ProgressListener progress)
+			throws IOException {
+		long total = sellerDao.count(criteria);
+		progress.onProgress(0, total);
+
+		boolean completed = false;
+		// closed in reverse order: the gzip stream (null when not compressing) before the file
+		try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				GZIPOutputStream gzipStream = gzip
+						? new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE)
+						: null) {
+			channel = gzipStream != null ? Channels.newChannel(gzipStream) : fileChannel;
+			long[] written = { 0 };
+			long[] lastProgress = { System.nanoTime() };
+			begin(format);
+			try {
+				sellerDao.forEach(criteria, new SellerSort(SellerSort.Column.ID, true), fetchSize, obj -> {
+					if (cancelled) {
+						return false;
+					}
+					append(format, obj, written[0] == 0);
+					written[0]++;
+					long now = System.nanoTime();
+					if (now - lastProgress[0] >= PROGRESS_INTERVAL_NANOS) {
+						lastProgress[0] = now;
+						progress.onProgress(written[0], Math.max(total, written[0]));
+					}
+					return true;
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			if (cancelled) {
+				throw new CancellationException("Export cancelled");
+			}
+			end(format);
+			flush(true);
+			// here and not by the try, so a failure to write the end of the file is not taken as success
+			if (gzipStream != null) {
+				gzipStream.finish();
+			}
+			completed = true;
+
+			progress.onProgress(written[0], written[0]);
+			return written[0];
+
+		} finally {
+			channel = null;
+			text.setLength(0);
+			bytes.clear();
+			encoder.reset();
+			if (!completed) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private void begin(Format format) {
+		if (format == Format.CSV) {
+			text.append("Id,Name,Email,BirthDate,BaseSalary,Department\n");
+		} else {
+			text.append("[");
+		}
+	}
+
+	private void end(Format format) {
+		if (format == Format.JSON) {
+			text.append("\n]\n");
+		}
+	}
+
+	private void append(Format format, Seller obj, boolean first) {
+		String birthDate = obj.getBirthDate() == null ? null
+				: DATE_FORMAT.format(Instant.ofEpochMilli(obj.getBirthDate().getTime()));
+		String baseSalary = obj.getBaseSalary() == null ? null : BigDecimal.valueOf(obj.getBaseSalary()).toPlainString();
+
+		if (format == Format.CSV) {
+			text.append(obj.getId()).append(Csv.SEPARATOR);
+			Csv.appendField(text, obj.getName());
+			text.append(Csv.SEPARATOR);
+			Csv.appendField(text, obj.getEmail());
+			text.append(Csv.SEPARATOR);
+			Csv.appendField(text, birthDate);
+			text.append(Csv.SEPARATOR);
+			Csv.appendField(text, baseSalary);
+			text.append(Csv.SEPARATOR);
+			Csv.appendField(text, obj.getDepartment() == null ? null : obj.getDepartment().getName());
+			text.append('\n');
+		} else {
+			text.append(first ? "\n" : ",\n");
+			text.append("{\"id\":").append(obj.getId());
+			text.append(",\"name\":");
+			appendJsonString(obj.getName());
+			text.append(",\"email\":");
+			appendJsonString(obj.getEmail());
+			text.append(",\"birthDate\":");
+			appendJsonString(birthDate);
+			text.append(",\"baseSalary\":").append(baseSalary);
+			text.append(",\"departmentId\":").append(obj.getDepartment() == null ? null : obj.getDepartment().getId());
+			text.append(",\"department\":");
+			appendJsonString(obj.getDepartment() == null ? null : obj.getDepartment().getName());
+			text.append('}');
+		}
+
+		if (text.length() >= BUFFER_SIZE) {
+			try {
+				flush(false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void appendJsonString(String value) {
+		if (value == null) {
+			text.append("null");
+			return;
+		}
+		text.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				text.append("\\\"");
+				break;
+			case '\\':
+				text.append("\\\\");
+				break;
+			case '\n':
+				text.append("\\n");
+				break;
+			case '\r':
+				text.append("\\r");
+				break;
+			case '\t':
+				text.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					text.append(String.format("\\u%04x", (int) c));
+				} else {
+					text.append(c);
+				}
+			}
+		}
+		text.append('"');
+	}
+
+	// Encodes the text collected so far into the byte buffer, writing the buffer to the channel each time it fills
+	private void flush(boolean endOfInput) throws IOException {
+		CharBuffer chars = CharBuffer.wrap(text);
+		while (true) {
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+			if (result.isOverflow()) {
+				drain();
+			} else if (result.isError()) {
+				throw new CharacterCodingException();
+			} else {
+				break;
+			}
+		}
+		if (endOfInput) {
+			while (encoder.flush(bytes).isOverflow()) {
+				drain();
+			}
+		}
+		// a surrogate pair cut at the end stays for the next call
+		text.delete(0, chars.position());
+		drain();
+	}
+
+	private void drain() throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+}
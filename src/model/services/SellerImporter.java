@@ -0,0 +1,438 @@
+package model.services;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.exception.ValidationException;
+
+/**
+ * Imports sellers from a CSV file with a header line naming the columns Name,
+ * Email, BirthDate (yyyy-MM-dd or dd/MM/yyyy), BaseSalary and Department (the
+ * department name), in any order. The file is streamed through three stages
+ * connected by bounded queues:
+ *
+ * - the calling thread reads records and hands them over in chunks;
+ * - parseThreads threads turn them into sellers, checked with
+ *   {@link SellerValidator}, and reject the invalid ones with their line number;
+ * - writeThreads threads insert each chunk of valid sellers in one batched
+ *   transaction (SellerDao.insertAll).
+ *
+ * When the database is the slowest stage the queues fill up and the reader
+ * waits, so memory stays at a few chunks whatever the size of the file. A
+ * database error stops the import: the chunks already written stay committed.
+ *
+ * An instance runs one import; cancel() may be called from any thread.
+ */
+public class SellerImporter {
+
+	private static final String[] COLUMNS = { "Name", "Email", "BirthDate", "BaseSalary", "Department" };
+	private static final int NAME = 0, EMAIL = 1, BIRTH_DATE = 2, BASE_SALARY = 3, DEPARTMENT = 4;
+	// strict, so 31/02 is rejected instead of becoming 28/02
+	private static final DateTimeFormatter[] DATE_FORMATS = { DateTimeFormatter.ISO_LOCAL_DATE,
+			DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT) };
+	private static final int MAX_ERRORS = 1000;
+	private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+	// end of stream marker, compared by identity
+	private static final List<?> END = new ArrayList<>(0);
+
+	private static class Record {
+		final long line;
+		final String text;
+
+		Record(long line, String text) {
+			this.line = line;
+			this.text = text;
+		}
+	}
+
+	private final SellerDao sellerDao;
+	private final DepartmentDao departmentDao;
+	private final int chunkSize;
+	private final int parseThreads;
+	private final int writeThreads;
+	private final int queueCapacity;
+
+	private volatile boolean stopped;
+	private volatile boolean cancelled;
+	private volatile String failure;
+
+	private final AtomicLong bytesRead = new AtomicLong();
+	private long totalBytes;
+	private final AtomicLong rowsRead = new AtomicLong();
+	private final AtomicLong imported = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final Queue<ImportReport.RowError> errors = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger errorCount = new AtomicInteger();
+	private final AtomicLong lastProgress = new AtomicLong();
+
+	public SellerImporter(SellerDao sellerDao, DepartmentDao departmentDao, int chunkSize, int parseThreads,
+			int writeThreads, int queueCapacity) {
+		this.sellerDao = sellerDao;
+		this.departmentDao = departmentDao;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.parseThreads = Math.max(1, parseThreads);
+		this.writeThreads = Math.max(1, writeThreads);
+		this.queueCapacity = Math.max(1, queueCapacity);
+	}
+
+	public void cancel() {
+		cancelled = true;
+		stopped = true;
+	}
+
+	/**
+	 * Runs the import and returns its report. progress receives a report now
+	 * and then while it runs, and the final one, on the importing threads.
+	 */
+	public ImportReport run(Path file, Consumer<ImportReport> progress) {
+		BlockingQueue<List<Record>> records = new ArrayBlockingQueue<>(queueCapacity);
+		BlockingQueue<List<Seller>> sellers = new ArrayBlockingQueue<>(queueCapacity);
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService threads = Executors.newFixedThreadPool(parseThreads + writeThreads, r -> {
+			Thread t = new Thread(r, "seller-import-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new CountingInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8),
+				1 << 16)) {
+			totalBytes = Files.size(file);
+			int[] columns = readHeader(reader);
+			Map<String, Department> departments = new HashMap<>();
+			for (Department dep : departmentDao.findAll()) {
+				departments.put(dep.getName().trim().toLowerCase(Locale.ROOT), dep);
+			}
+
+			List<Future<?>> parsers = new ArrayList<>();
+			for (int i = 0; i < parseThreads; i++) {
+				parsers.add(threads.submit(() -> parse(records, sellers, columns, departments)));
+			}
+			List<Future<?>> writers = new ArrayList<>();
+			for (int i = 0; i < writeThreads; i++) {
+				writers.add(threads.submit(() -> write(sellers, progress)));
+			}
+
+			read(reader, records);
+			for (int i = 0; i < parseThreads; i++) {
+				put(records, end());
+			}
+			await(parsers);
+			for (int i = 0; i < writeThreads; i++) {
+				put(sellers, end());
+			}
+			await(writers);
+
+		} catch (IOException e) {
+			fail("Cannot read " + file.getFileName() + ": " + e.getMessage());
+		} catch (RuntimeException e) {
+			fail(e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel();
+		} finally {
+			threads.shutdownNow();
+		}
+
+		ImportReport report = snapshot(true);
+		progress.accept(report);
+		return report;
+	}
+
+	// Column positions in COLUMNS order
+	private int[] readHeader(BufferedReader reader) throws IOException {
+		String header = reader.readLine();
+		if (header == null) {
+			throw new IOException("the file is empty");
+		}
+		// Excel writes UTF-8 files with a byte order mark
+		if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+			header = header.substring(1);
+		}
+		List<String> names = Csv.split(header);
+		int[] columns = new int[COLUMNS.length];
+		for (int i = 0; i < COLUMNS.length; i++) {
+			columns[i] = -1;
+			for (int j = 0; j < names.size(); j++) {
+				if (names.get(j).trim().equalsIgnoreCase(COLUMNS[i])) {
+					columns[i] = j;
+				}
+			}
+			if (columns[i] < 0) {
+				throw new IOException("missing column " + COLUMNS[i] + " in the header");
+			}
+		}
+		return columns;
+	}
+
+	private void read(BufferedReader reader, BlockingQueue<List<Record>> records)
+			throws IOException, InterruptedException {
+		List<Record> chunk = new ArrayList<>(chunkSize);
+		StringBuilder text = new StringBuilder();
+		boolean open = false;
+		long lineNumber = 1;
+		long start = 0;
+		String line;
+		while (!stopped && (line = reader.readLine()) != null) {
+			lineNumber++;
+			if (text.length() == 0) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				start = lineNumber;
+				text.append(line);
+			} else {
+				// a quoted field with a line break in it
+				text.append('\n').append(line);
+			}
+			open = open != Csv.isOpen(line);
+			if (open) {
+				continue;
+			}
+			chunk.add(new Record(start, text.toString()));
+			text.setLength(0);
+			rowsRead.incrementAndGet();
+			if (chunk.size() == chunkSize) {
+				if (!put(records, chunk)) {
+					return;
+				}
+				chunk = new ArrayList<>(chunkSize);
+			}
+		}
+		if (text.length() > 0) {
+			// unterminated quote at the end of the file, the parser reports what it can
+			chunk.add(new Record(start, text.toString()));
+			rowsRead.incrementAndGet();
+		}
+		if (!chunk.isEmpty()) {
+			put(records, chunk);
+		}
+	}
+
+	private void parse(BlockingQueue<List<Record>> records, BlockingQueue<List<Seller>> sellers, int[] columns,
+			Map<String, Department> departments) {
+		try {
+			for (List<Record> chunk = take(records); chunk != END; chunk = take(records)) {
+				List<Seller> valid = new ArrayList<>(chunk.size());
+				for (Record record : chunk) {
+					try {
+						valid.add(toSeller(Csv.split(record.text), columns, departments));
+					} catch (ValidationException e) {
+						reject(record.line, String.join("; ", e.getErros().values()));
+					}
+				}
+				if (!valid.isEmpty() && !put(sellers, valid)) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	private void write(BlockingQueue<List<Seller>> sellers, Consumer<ImportReport> progress) {
+		try {
+			for (List<Seller> chunk = take(sellers); chunk != END; chunk = take(sellers)) {
+				sellerDao.insertAll(chunk);
+				imported.addAndGet(chunk.size());
+				reportProgress(progress);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	private Seller toSeller(List<String> fields, int[] columns, Map<String, Department> departments) {
+		ValidationException exception = new ValidationException("Invalid row");
+		Seller obj = new Seller();
+		obj.setName(field(fields, columns[NAME]));
+		obj.setEmail(field(fields, columns[EMAIL]));
+
+		String birthDate = field(fields, columns[BIRTH_DATE]);
+		if (birthDate != null) {
+			LocalDate date = parseDate(birthDate);
+			if (date == null) {
+				exception.addErro("birthDate", "Invalid birth date: " + birthDate);
+			} else {
+				obj.setBirthDate(java.util.Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+			}
+		}
+
+		String baseSalary = field(fields, columns[BASE_SALARY]);
+		if (baseSalary != null) {
+			try {
+				obj.setBaseSalary(Double.parseDouble(baseSalary));
+			} catch (NumberFormatException e) {
+				exception.addErro("baseSalary", "Invalid base salary: " + baseSalary);
+			}
+		}
+
+		String department = field(fields, columns[DEPARTMENT]);
+		if (department != null) {
+			obj.setDepartment(departments.get(department.toLowerCase(Locale.ROOT)));
+			if (obj.getDepartment() == null) {
+				exception.addErro("department", "Unknown department: " + department);
+			}
+		}
+
+		try {
+			SellerValidator.validate(obj);
+		} catch (ValidationException e) {
+			// keep the parse error of a field rather than "empty"
+			for (Map.Entry<String, String> error : e.getErros().entrySet()) {
+				exception.getErros().putIfAbsent(error.getKey(), error.getValue());
+			}
+		}
+		if (!exception.getErros().isEmpty()) {
+			throw exception;
+		}
+		return obj;
+	}
+
+	private static String field(List<String> fields, int column) {
+		if (column >= fields.size()) {
+			return null;
+		}
+		String value = fields.get(column).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static LocalDate parseDate(String text) {
+		for (DateTimeFormatter format : DATE_FORMATS) {
+			try {
+				return LocalDate.parse(text, format);
+			} catch (DateTimeParseException e) {
+				// try the next format
+			}
+		}
+		return null;
+	}
+
+	private void reject(long line, String message) {
+		rejected.incrementAndGet();
+		if (errorCount.incrementAndGet() <= MAX_ERRORS) {
+			errors.add(new ImportReport.RowError(line, message));
+		}
+	}
+
+	private void fail(String message) {
+		if (failure == null) {
+			failure = message;
+		}
+		stopped = true;
+	}
+
+	private void reportProgress(Consumer<ImportReport> progress) {
+		long now = System.nanoTime();
+		long last = lastProgress.get();
+		if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgress.compareAndSet(last, now)) {
+			progress.accept(snapshot(false));
+		}
+	}
+
+	private ImportReport snapshot(boolean finished) {
+		List<ImportReport.RowError> list = new ArrayList<>(errors);
+		list.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+		return new ImportReport(finished ? totalBytes : bytesRead.get(), totalBytes, rowsRead.get(), imported.get(),
+				rejected.get(), list, finished, cancelled, failure);
+	}
+
+	// The queue operations give up once the import is stopped, so no stage waits forever on another
+
+	private <T> boolean put(BlockingQueue<T> queue, T item) throws InterruptedException {
+		while (!stopped) {
+			if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<T> take(BlockingQueue<List<T>> queue) throws InterruptedException {
+		while (!stopped) {
+			List<T> item = queue.poll(100, TimeUnit.MILLISECONDS);
+			if (item != null) {
+				return item;
+			}
+		}
+		return (List<T>) END;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> end() {
+		return (List<T>) END;
+	}
+
+	private void await(List<Future<?>> futures) throws InterruptedException {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				fail(e.getCause().getMessage());
+			}
+		}
+	}
+
+	// Bytes taken from the file so far, for the progress
+	private class CountingInputStream extends FilterInputStream {
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				bytesRead.incrementAndGet();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				bytesRead.addAndGet(n);
+			}
+			return n;
+		}
+	}
+}
@@ -1,9 +1,21 @@
 package model.services;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import db.DB;
+import db.DeleteResult;
 import model.dao.DaoFactory;
+import model.dao.SalaryAdjustment;
+import model.dao.SellerCriteria;
 import model.dao.SellerDao;
+import model.dao.SellerSort;
 import model.entities.Seller;
 
 public class SellerService {
@@ -14,6 +26,24 @@ public class SellerService {
 		return departmentDao.findAll();
 	}
 	
+	public Seller findById(Integer id) {
+		return departmentDao.findByid(id);
+	}
+	
+	// Next page after the given seller (null for the first page), in the given order
+	public List<Seller> findPage(Seller after, int limit, SellerSort sort) {
+		return departmentDao.findPage(after, limit, sort);
+	}
+	
+	public List<Seller> search(SellerCriteria criteria) {
+		return departmentDao.search(criteria);
+	}
+	
+	// Like findPage, only over the sellers matching the criteria
+	public List<Seller> searchPage(SellerCriteria criteria, Seller after, int limit, SellerSort sort) {
+		return departmentDao.search(criteria, after, limit, sort);
+	}
+	
 	public void saveOrUpdate(Seller dep) {
 		if (dep.getId() == null) {
 			departmentDao.insert(dep);
@@ -23,7 +53,106 @@ public class SellerService {
 		}
 	}
 	
+	// Bulk version of saveOrUpdate: new objects are inserted and existing ones updated in batches
+	public void saveOrUpdateAll(Collection<Seller> list) {
+		List<Seller> inserts = new ArrayList<>();
+		List<Seller> updates = new ArrayList<>();
+		for (Seller obj : list) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			} else {
+				updates.add(obj);
+			}
+		}
+		if (!inserts.isEmpty()) {
+			departmentDao.insertAll(inserts);
+		}
+		if (!updates.isEmpty()) {
+			departmentDao.updateAll(updates);
+		}
+	}
+	
 	public void remove(Seller obj) {
 		departmentDao.deleteById(obj.getId());
 	}
+	
+	// Deletes all of them in one transaction
+	public DeleteResult removeAll(Collection<Seller> list) {
+		List<Integer> ids = new ArrayList<>(list.size());
+		for (Seller obj : list) {
+			ids.add(obj.getId());
+		}
+		return departmentDao.deleteByIds(ids);
+	}
+	
+	// Changes the salary of every seller matching the criteria in one statement, returns how many changed
+	public int adjustSalaries(SellerCriteria criteria, SalaryAdjustment adjustment) {
+		return departmentDao.adjustSalary(criteria, adjustment);
+	}
+	
+	// A new importer for one CSV file, see SellerImporter for the format; configured by the import.* properties
+	public SellerImporter newImporter() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return new SellerImporter(departmentDao, DaoFactory.createDepartmentDao(),
+				DB.getIntProperty("import.chunkSize", 1000),
+				DB.getIntProperty("import.parseThreads", Math.max(1, processors - 1)),
+				DB.getIntProperty("import.writeThreads", 2),
+				DB.getIntProperty("import.queueCapacity", 4));
+	}
+	
+	// A new exporter for one file; export.fetchSize rows are read from the database at a time
+	public SellerExporter newExporter() {
+		return new SellerExporter(departmentDao, DB.getIntProperty("export.fetchSize", 1000));
+	}
+	
+	// Async versions, run on the ServiceExecutor instead of the caller's thread
+	public CompletableFuture<List<Seller>> findAllAsync() {
+		return ServiceExecutor.supply(this::findAll);
+	}
+	
+	public CompletableFuture<Seller> findByIdAsync(Integer id) {
+		return ServiceExecutor.supply(() -> findById(id));
+	}
+	
+	public CompletableFuture<List<Seller>> findPageAsync(Seller after, int limit, SellerSort sort) {
+		return ServiceExecutor.supply(() -> findPage(after, limit, sort));
+	}
+	
+	// Cancelling the returned future drops the query if it has not started yet
+	public CompletableFuture<List<Seller>> searchPageAsync(SellerCriteria criteria, Seller after, int limit,
+			SellerSort sort) {
+		return ServiceExecutor.supplyCancellable(() -> searchPage(criteria, after, limit, sort));
+	}
+	
+	public CompletableFuture<Void> saveOrUpdateAsync(Seller obj) {
+		return ServiceExecutor.run(() -> saveOrUpdate(obj));
+	}
+	
+	public CompletableFuture<Void> removeAsync(Seller obj) {
+		return ServiceExecutor.run(() -> remove(obj));
+	}
+	
+	public CompletableFuture<Integer> adjustSalariesAsync(SellerCriteria criteria, SalaryAdjustment adjustment) {
+		return ServiceExecutor.supply(() -> adjustSalaries(criteria, adjustment));
+	}
+	
+	public CompletableFuture<ImportReport> importCsvAsync(SellerImporter importer, Path file,
+			Consumer<ImportReport> progress) {
+		return ServiceExecutor.supply(() -> importer.run(file, progress));
+	}
+	
+	public CompletableFuture<Long> exportAsync(SellerExporter exporter, Path file, SellerExporter.Format format,
+			boolean gzip, SellerCriteria criteria, SellerExporter.ProgressListener progress) {
+		return ServiceExecutor.supply(() -> {
+			try {
+				return exporter.run(file, format, gzip, criteria, progress);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	public CompletableFuture<DeleteResult> removeAllAsync(Collection<Seller> list) {
+		return ServiceExecutor.supply(() -> removeAll(list));
+	}
 }
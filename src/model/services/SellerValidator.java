@@ -0,0 +1,48 @@
+package model.services;
+
+import model.entities.Seller;
+import model.exception.ValidationException;
+
+/**
+ * Rules a seller must follow before it is saved, shared by the seller form and
+ * the CSV import. Errors are keyed by field (name, email, birthDate,
+ * baseSalary, department).
+ */
+public class SellerValidator {
+
+	// Same limits as the text fields of the seller form
+	public static final int NAME_MAX_LENGTH = 70;
+	public static final int EMAIL_MAX_LENGTH = 60;
+
+	public static void validate(Seller obj) {
+		ValidationException exception = new ValidationException("Erro de validao");
+
+		if (obj.getName() == null || obj.getName().trim().equals("")) {
+			exception.addErro("name", "Campo nome est vzio");
+		} else if (obj.getName().length() > NAME_MAX_LENGTH) {
+			exception.addErro("name", "Campo nome tem mais de " + NAME_MAX_LENGTH + " caracteres");
+		}
+
+		if (obj.getEmail() == null || obj.getEmail().trim().equals("")) {
+			exception.addErro("email", "Campo e-mail est vzio");
+		} else if (obj.getEmail().length() > EMAIL_MAX_LENGTH) {
+			exception.addErro("email", "Campo e-mail tem mais de " + EMAIL_MAX_LENGTH + " caracteres");
+		}
+
+		if (obj.getBirthDate() == null) {
+			exception.addErro("birthDate", "Campo birth date est vzio");
+		}
+
+		if (obj.getBaseSalary() == null) {
+			exception.addErro("baseSalary", "Campo Base Salary est vzio");
+		}
+
+		if (obj.getDepartment() == null) {
+			exception.addErro("department", "Campo department est vzio");
+		}
+
+		if (exception.getErros().size() > 0) {
+			throw exception;
+		}
+	}
+}
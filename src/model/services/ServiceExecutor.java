@@ -0,0 +1,83 @@
+package model.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import db.DB;
+
+/**
+ * Executor used by the *Async service methods, so database calls never run on
+ * the JavaFX application thread. Uses virtual threads when the running JVM
+ * has them, otherwise a fixed pool as large as the connection pool (more
+ * threads would only wait for a connection).
+ */
+public class ServiceExecutor {
+
+	private static ExecutorService executor = null;
+
+	public static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = createExecutor();
+		}
+		return executor;
+	}
+
+	public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, getExecutor());
+	}
+
+	/**
+	 * Like supply(), but cancel() on the returned future also cancels the task:
+	 * it is skipped if it is still queued, and its thread is interrupted if it
+	 * is running. Meant for reads that a newer request makes useless.
+	 */
+	public static <T> CompletableFuture<T> supplyCancellable(Supplier<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Future<?> running = getExecutor().submit(() -> {
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				future.complete(task.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled()) {
+				running.cancel(true);
+			}
+		});
+		return future;
+	}
+
+	public static CompletableFuture<Void> run(Runnable task) {
+		return CompletableFuture.runAsync(task, getExecutor());
+	}
+
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private static ExecutorService createExecutor() {
+		try {
+			// Java 21+, looked up by reflection so the code still runs on older JVMs
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newFixedThreadPool(DB.getIntProperty("pool.maxSize", 10), r -> {
+				Thread t = new Thread(r, "service-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+}